@@ -4,6 +4,7 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.io.Serial;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -19,6 +20,12 @@ import static primitives.Util.isZero;
  */
 @SuppressWarnings("unused")
 public class Cylinder extends Tube {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the height of the cylinder
      */
@@ -3,6 +3,7 @@ package geometries;
 import primitives.Point;
 import primitives.Ray;
 
+import java.io.Serial;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -11,9 +12,16 @@ import java.util.List;
  * this class is for all the geometries that can intersect with a ray ,altogether
  */
 public class Geometries extends Intersectable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the list that will hold what geometries are inside
      */
+    @SuppressWarnings("serial") // the lists that are used are serializable
     private final List<Intersectable> intersectables = new LinkedList<>();
 
     /**
@@ -5,6 +5,8 @@ import primitives.Material;
 import primitives.Point;
 import primitives.Vector;
 
+import java.io.Serial;
+
 /**
  * this interface will serve all geometry shapes in the program
  * 2D and 3D
@@ -13,6 +15,12 @@ import primitives.Vector;
  * @author Zaki zafrani
  */
 public abstract class Geometry extends Intersectable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * emission light
      */
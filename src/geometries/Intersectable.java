@@ -3,6 +3,8 @@ package geometries;
 import primitives.Point;
 import primitives.Ray;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -12,7 +14,12 @@ import java.util.List;
  * @author Ishai zigdon
  * @author Zaki zafrani
  */
-public abstract class Intersectable {
+public abstract class Intersectable implements Serializable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
 
     /**
      * the max x,y,z values of the shape
@@ -4,6 +4,7 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.io.Serial;
 import java.util.List;
 
 import static primitives.Util.alignZero;
@@ -16,6 +17,12 @@ import static primitives.Util.isZero;
  * @author Zaki zafrani
  */
 public class Plane extends Geometry {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * point on the plane
      */
@@ -4,6 +4,7 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.io.Serial;
 import java.util.List;
 
 import static primitives.Util.alignZero;
@@ -16,9 +17,16 @@ import static primitives.Util.isZero;
  * @author Dan
  */
 public class Polygon extends Geometry {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * List of polygon's vertices
      */
+    @SuppressWarnings("serial") // the lists that are used are serializable
     protected final List<Point> vertices;
     /**
      * Associated plane in which the polygon lays
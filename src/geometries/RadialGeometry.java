@@ -1,5 +1,7 @@
 package geometries;
 
+import java.io.Serial;
+
 /**
  * an abstract class that all the radial shapes are using
  *
@@ -7,6 +9,12 @@ package geometries;
  * @author Zaki zafrani
  */
 public abstract class RadialGeometry extends Geometry {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the radius of the radial shape
      */
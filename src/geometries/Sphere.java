@@ -4,6 +4,7 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.io.Serial;
 import java.util.List;
 
 import static java.lang.Math.sqrt;
@@ -17,6 +18,12 @@ import static primitives.Util.alignZero;
  * @author Zaki zafrani
  */
 public class Sphere extends RadialGeometry {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the center of the sphere
      */
@@ -4,6 +4,7 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.io.Serial;
 import java.util.List;
 
 import static primitives.Util.alignZero;
@@ -16,6 +17,12 @@ import static primitives.Util.isZero;
  * @author Zaki zafrani
  */
 public class Triangle extends Polygon {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Triangle constructor that receives the 3 points of the triangle
      * and call the father constructor
@@ -3,6 +3,8 @@ package lighting;
 import primitives.Color;
 import primitives.Double3;
 
+import java.io.Serial;
+
 /**
  * this class represent the ambient light
  *
@@ -10,6 +12,12 @@ import primitives.Double3;
  * @author Zaki zafrani
  */
 public class AmbientLight extends Light {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * black light
      */
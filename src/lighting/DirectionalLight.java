@@ -1,5 +1,7 @@
 package lighting;
 
+import java.io.Serial;
+
 import primitives.*;
 
 
@@ -10,6 +12,12 @@ import primitives.*;
  * @author Zaki zafrani
  */
 public class DirectionalLight extends Light implements LightSource {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the direction vector
      */
@@ -2,13 +2,22 @@ package lighting;
 
 import primitives.Color;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * class for all the lights
  *
  * @author Ishai zigdon
  * @author Zaki zafrani
  */
-public abstract class Light {
+public abstract class Light implements Serializable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the intensity of the light
      */
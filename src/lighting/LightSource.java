@@ -4,6 +4,8 @@ import primitives.Color;
 import primitives.Point;
 import primitives.Vector;
 
+import java.io.Serializable;
+
 
 /**
  * class for calculating lights on given point
@@ -11,7 +13,7 @@ import primitives.Vector;
  * @author Ishai zigdon
  * @author Zaki zafrani
  */
-public interface LightSource {
+public interface LightSource extends Serializable {
     /**
      * calculates the intensity of the light on a given point
      *
@@ -36,4 +38,15 @@ public interface LightSource {
      */
     public double getDistance(Point p);
 
+    /**
+     * checking if the light can affect a given point at all,
+     * so the shading of the point can skip it without casting shadow rays
+     *
+     * @param p the given point
+     * @return false if the light surely doesn't affect the point, true otherwise
+     */
+    default boolean affects(Point p) {
+        return true;
+    }
+
 }
@@ -4,6 +4,8 @@ import primitives.Color;
 import primitives.Point;
 import primitives.Vector;
 
+import java.io.Serial;
+
 import static primitives.Util.alignZero;
 
 
@@ -14,6 +16,12 @@ import static primitives.Util.alignZero;
  * @author Zaki zafrani
  */
 public class PointLight extends Light implements LightSource {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the position of the light
      */
@@ -25,7 +33,7 @@ public class PointLight extends Light implements LightSource {
     /**
      * the constant attenuation factor
      */
-    private double kC = 1;
+    protected double kC = 1;
     /**
      * the constant linear attenuation factor
      */
@@ -34,6 +42,14 @@ public class PointLight extends Light implements LightSource {
      * the constant squared attenuation factor
      */
     private double kQ = 0;
+    /**
+     * the intensity under which the light is considered to have no effect (0 for never)
+     */
+    protected double cutoff = 0;
+    /**
+     * the distance from which the intensity of the light is under the cutoff
+     */
+    private double influenceRadius = Double.POSITIVE_INFINITY;
 
     /**
      * ctor with given intensity and position
@@ -70,6 +86,7 @@ public class PointLight extends Light implements LightSource {
         if (alignZero(kC) <= 0)
             throw new IllegalArgumentException("kC must be greater than zero");
         this.kC = kC;
+        updateInfluence();
         return this;
     }
 
@@ -81,6 +98,7 @@ public class PointLight extends Light implements LightSource {
      */
     public PointLight setKl(double kL) {
         this.kL = kL;
+        updateInfluence();
         return this;
     }
 
@@ -92,9 +110,58 @@ public class PointLight extends Light implements LightSource {
      */
     public PointLight setKq(double kQ) {
         this.kQ = kQ;
+        updateInfluence();
         return this;
     }
 
+    /**
+     * set function for the cutoff - the intensity under which the light is considered to have no effect,
+     * so points that are far enough from the light don't calculate it at all
+     *
+     * @param cutoff the given cutoff, 0 for never
+     * @return the updated PointLight
+     */
+    public PointLight setCutoff(double cutoff) {
+        if (cutoff < 0)
+            throw new IllegalArgumentException("cutoff must not be negative");
+        this.cutoff = cutoff;
+        updateInfluence();
+        return this;
+    }
+
+    /**
+     * calculates the bounds of the influence of the light, after one of its factors changed
+     */
+    protected void updateInfluence() {
+        if (cutoff == 0) {
+            influenceRadius = Double.POSITIVE_INFINITY;
+            return;
+        }
+        // solving kC + kL * d + kQ * d^2 = intensity / cutoff for the distance d
+        double c = kC - intensity.max() / cutoff;
+        if (c >= 0) influenceRadius = 0;
+        else if (kQ == 0) influenceRadius = kL == 0 ? Double.POSITIVE_INFINITY : -c / kL;
+        else influenceRadius = (Math.sqrt(kL * kL - 4 * kQ * c) - kL) / (2 * kQ);
+    }
+
+    /**
+     * get function for the position
+     *
+     * @return the position
+     */
+    public Point getPosition() {
+        return position;
+    }
+
+    /**
+     * get function for the distance from which the light has no effect
+     *
+     * @return the distance, or infinity if there is no cutoff
+     */
+    public double getInfluenceRadius() {
+        return influenceRadius;
+    }
+
     /**
      * set function for radius
      *
@@ -128,6 +195,12 @@ public class PointLight extends Light implements LightSource {
         return intensity.scale(1 / (kC + kL * distance + kQ * distanceSquared));
     }
 
+    @Override
+    public boolean affects(Point p) {
+        return influenceRadius == Double.POSITIVE_INFINITY
+                || position.distanceSquared(p) < influenceRadius * influenceRadius;
+    }
+
     @Override
     public Vector getL(Point p) {
         return p.subtract(position).normalize();
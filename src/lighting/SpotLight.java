@@ -6,6 +6,8 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.io.Serial;
+
 import static primitives.Util.alignZero;
 
 
@@ -16,6 +18,12 @@ import static primitives.Util.alignZero;
  * @author Zaki zafrani
  */
 public class SpotLight extends PointLight {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the direction of the spotLight
      */
@@ -24,6 +32,10 @@ public class SpotLight extends PointLight {
      * the width of the beam
      */
     private int narrowBeam = 1;
+    /**
+     * the cosine of the angle from the direction out of which the intensity is under the cutoff
+     */
+    private double minCos = 0;
 
     /**
      * ctor with given intensity and position and direction
@@ -88,9 +100,27 @@ public class SpotLight extends PointLight {
      */
     public SpotLight setNarrowBeam(int narrowBeam) {
         this.narrowBeam = narrowBeam;
+        updateInfluence();
         return this;
     }
 
+    @Override
+    public SpotLight setCutoff(double cutoff) {
+        return (SpotLight) super.setCutoff(cutoff);
+    }
+
+    @Override
+    protected void updateInfluence() {
+        super.updateInfluence();
+        // the attenuation is at least kC, so out of the cone cos^narrowBeam * intensity / kC < cutoff
+        minCos = cutoff == 0 ? 0 : Math.min(1, Math.pow(cutoff * kC / intensity.max(), 1d / narrowBeam));
+    }
+
+    @Override
+    public boolean affects(Point p) {
+        return super.affects(p) && alignZero(direction.dotProduct(getL(p))) > minCos;
+    }
+
     @Override
     public Color getIntensity(Point p) {
         double angle = alignZero(direction.dotProduct(getL(p)));
@@ -1,5 +1,8 @@
 package primitives;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * Wrapper class for java.jwt.Color The constructors operate with any
  * non-negative RGB values. The colors are maintained without upper limit of
@@ -8,7 +11,13 @@ package primitives;
  *
  * @author Dan Zilberstein
  */
-public class Color {
+public class Color implements Serializable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Black color = (0,0,0)
      */
@@ -69,10 +78,47 @@ public class Color {
      * @return java.awt.Color object based on this Color RGB components
      */
     public java.awt.Color getColor() {
+        return new java.awt.Color(getRGB());
+    }
+
+    /**
+     * getter for the red component, without limiting it to 255
+     *
+     * @return the red component
+     */
+    public double getRed() {
+        return rgb.d1;
+    }
+
+    /**
+     * getter for the green component, without limiting it to 255
+     *
+     * @return the green component
+     */
+    public double getGreen() {
+        return rgb.d2;
+    }
+
+    /**
+     * getter for the blue component, without limiting it to 255
+     *
+     * @return the blue component
+     */
+    public double getBlue() {
+        return rgb.d3;
+    }
+
+    /**
+     * Color getter - packs the color as it is printed into a single int,
+     * in the same format as {@link java.awt.Color#getRGB()}, without creating any object
+     *
+     * @return the color as 0xAARRGGBB, with full alpha
+     */
+    public int getRGB() {
         int ir = (int) rgb.d1;
         int ig = (int) rgb.d2;
         int ib = (int) rgb.d3;
-        return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
+        return 0xFF000000 | (ir > 255 ? 255 : ir) << 16 | (ig > 255 ? 255 : ig) << 8 | (ib > 255 ? 255 : ib);
     }
 
     /**
@@ -127,6 +173,38 @@ public class Color {
         return new Color(rgb.reduce(k));
     }
 
+    /**
+     * Calculates how different the color is from another color as they are printed -
+     * the biggest difference between their components, after limiting them to 255
+     *
+     * @param other the other color
+     * @return the difference, between 0 and 255
+     */
+    public double difference(Color other) {
+        return Math.max(Math.abs(Math.min(rgb.d1, 255) - Math.min(other.rgb.d1, 255)),
+                Math.max(Math.abs(Math.min(rgb.d2, 255) - Math.min(other.rgb.d2, 255)),
+                        Math.abs(Math.min(rgb.d3, 255) - Math.min(other.rgb.d3, 255))));
+    }
+
+    /**
+     * Calculates the brightness of the color as it is printed,
+     * after limiting its components to 255
+     *
+     * @return the luminance, between 0 and 255
+     */
+    public double luminance() {
+        return 0.2126 * Math.min(rgb.d1, 255) + 0.7152 * Math.min(rgb.d2, 255) + 0.0722 * Math.min(rgb.d3, 255);
+    }
+
+    /**
+     * finds the biggest component of the color
+     *
+     * @return the biggest component
+     */
+    public double max() {
+        return rgb.max();
+    }
+
     @Override
     public String toString() {
         return "rgb:" + rgb;
@@ -3,6 +3,9 @@
  */
 package primitives;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 import static primitives.Util.isZero;
 
 /**
@@ -10,7 +13,13 @@ import static primitives.Util.isZero;
  *
  * @author Dan Zilberstein
  */
-public class Double3 {
+public class Double3 implements Serializable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Zero triad (0,0,0)
      */
@@ -176,4 +185,26 @@ public class Double3 {
     public boolean greaterThan(Double3 other) {
         return d1 > other.d1 || d2 > other.d2 || d3 > other.d3;
     }
+
+    /**
+     * finds the biggest of the three numbers
+     *
+     * @return the biggest number
+     */
+    public double max() {
+        return Math.max(d1, Math.max(d2, d3));
+    }
+
+    /**
+     * keeps the zero and one triads unique after deserialization,
+     * since they are compared by reference
+     *
+     * @return the triad, or the constant equal to it
+     */
+    @Serial
+    private Object readResolve() {
+        if (d1 == 0 && d2 == 0 && d3 == 0) return ZERO;
+        if (d1 == 1 && d2 == 1 && d3 == 1) return ONE;
+        return this;
+    }
 }
@@ -1,12 +1,21 @@
 package primitives;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * class for material for kd ,ks and shininess
  *
  * @author Ishai zigdon
  * @author Zaki zafrani
  */
-public class Material {
+public class Material implements Serializable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the diffuse attenuation coefficient
      */
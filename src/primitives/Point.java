@@ -1,12 +1,21 @@
 package primitives;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * This class will represent point with 3 coordinates
  *
  * @author Ishai zigdon
  * @author Zaki zafrani
  */
-public class Point {
+public class Point implements Serializable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Represents the origin point
      */
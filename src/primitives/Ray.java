@@ -2,6 +2,8 @@ package primitives;
 
 import geometries.Intersectable.GeoPoint;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.List;
 
 import static primitives.Util.alignZero;
@@ -12,7 +14,13 @@ import static primitives.Util.alignZero;
  * @author Ishai zigdon
  * @author Zaki zafrani
  */
-public class Ray {
+public class Ray implements Serializable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Delta value for accuracy
      */
@@ -1,5 +1,7 @@
 package primitives;
 
+import java.io.Serial;
+
 /**
  * This class will represent vector, inherits from point
  *
@@ -7,6 +9,12 @@ package primitives;
  * @author Zaki zafrani
  */
 public class Vector extends Point {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the x-axis
      */
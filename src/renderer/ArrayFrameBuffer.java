@@ -0,0 +1,37 @@
+package renderer;
+
+/**
+ * frame buffer that keeps the pixels in an array on the heap
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class ArrayFrameBuffer implements FrameBuffer {
+    /**
+     * the components of the pixels
+     */
+    private final float[] components;
+
+    /**
+     * ctor that allocates the array
+     *
+     * @param nX the amount of columns
+     * @param nY the amount of rows
+     */
+    ArrayFrameBuffer(int nX, int nY) {
+        long size = 3L * nX * nY;
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("image is too big for the heap, use a mapped image writer");
+        components = new float[(int) size];
+    }
+
+    @Override
+    public float get(long index) {
+        return components[(int) index];
+    }
+
+    @Override
+    public void set(long index, float value) {
+        components[(int) index] = value;
+    }
+}
@@ -2,9 +2,10 @@ package renderer;
 
 import primitives.*;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 import static primitives.Util.isZero;
 
@@ -22,9 +23,55 @@ public class BlackBoard {
     private double amountOfRays = 9;
 
     /**
-     * random number for the jitter effect
+     * the generator of the sample points on the grid
      */
-    private static final Random RANDOM = new Random();
+    private Sampler sampler = new RandomSampler();
+
+    /**
+     * the sample pattern of every thread, reused by all the beams until the next seed, rotated for every beam
+     */
+    private final ThreadLocal<Pattern> patterns = ThreadLocal.withInitial(Pattern::new);
+
+    /**
+     * the amount of rays on the rim of the light in the adaptive mode
+     */
+    private static final int RIM_RAYS = 8;
+
+    /**
+     * the coordinates of evenly spread points on the rim of the unit disk on the right axis
+     */
+    private static final double[] RIM_X = new double[RIM_RAYS];
+    /**
+     * the coordinates of evenly spread points on the rim of the unit disk on the up axis
+     */
+    private static final double[] RIM_Y = new double[RIM_RAYS];
+
+    static {
+        for (int i = 0; i < RIM_RAYS; i++) {
+            RIM_X[i] = Math.cos(2 * Math.PI * i / RIM_RAYS);
+            RIM_Y[i] = Math.sin(2 * Math.PI * i / RIM_RAYS);
+        }
+    }
+
+    /**
+     * flag indicating whether the full beam is cast only when the rays on the rim of the light disagree
+     */
+    private boolean adaptive = false;
+
+    /**
+     * flag indicating whether the rays of the beams are counted
+     */
+    private boolean statistics = false;
+
+    /**
+     * the amount of shading points the beams were cast from
+     */
+    private final LongAdder shadingPoints = new LongAdder();
+
+    /**
+     * the amount of rays cast in all the beams
+     */
+    private final LongAdder rays = new LongAdder();
 
     /**
      * constructor with grid size and amount of rays
@@ -53,7 +100,109 @@ public class BlackBoard {
     }
 
     /**
-     * returns beam of rays from a given point to a given target in the given direction
+     * set function for the generator of the sample points on the grid
+     *
+     * @param sampler the sampler
+     * @return this object
+     */
+    public BlackBoard setSampler(Sampler sampler) {
+        this.sampler = sampler;
+        return this;
+    }
+
+    /**
+     * seeds the samples of the calling thread, so a pixel gets the same samples in every render
+     *
+     * @param seed the seed, usually calculated from the pixel
+     */
+    public void seed(long seed) {
+        sampler.seed(seed);
+        Pattern pattern = patterns.get();
+        pattern.valid = false;
+        pattern.rotations = new SplittableRandom(seed).split();
+    }
+
+    /**
+     * set function for the adaptive mode - casting a few rays on the rim of the light first,
+     * and the full beam only if they don't agree whether the light is blocked
+     *
+     * @param adaptive true for the adaptive mode
+     * @return this object
+     */
+    public BlackBoard setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        return this;
+    }
+
+    /**
+     * checking if the black board is in adaptive mode
+     *
+     * @return true if it is, false if not
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * set function for counting the rays of the beams, which is off by default
+     * so the render threads don't update the shared counters for every light of every point
+     *
+     * @param statistics true for counting the rays
+     * @return this object
+     */
+    public BlackBoard setStatistics(boolean statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
+    /**
+     * the average amount of rays cast from a shading point to a light, counted if the statistics are on
+     *
+     * @return the average amount of rays
+     */
+    public double getAverageRaysPerPoint() {
+        long points = shadingPoints.sum();
+        return points == 0 ? 0 : (double) rays.sum() / points;
+    }
+
+    /**
+     * resets the counters of the shading points and the rays
+     */
+    public void resetStatistics() {
+        shadingPoints.reset();
+        rays.reset();
+    }
+
+    /**
+     * counts the rays that were cast from a shading point to a light, if the statistics are on
+     *
+     * @param amount the amount of rays
+     */
+    void countRays(int amount) {
+        if (!statistics) return;
+        shadingPoints.increment();
+        rays.add(amount);
+    }
+
+    /**
+     * returns a few rays from a given point to evenly spread points on the rim of a disk.
+     * the points are rotated by a new angle on every call
+     *
+     * @param p        the given point
+     * @param distance the given distance of the black board
+     * @param v        the given direction
+     * @param size     the radius of the disk
+     * @return list of rays
+     */
+    public List<Vector> rimOfRays(Point p, double distance, double size, Vector v) {
+        if (isZero(size)) return List.of(v.scale(-1));
+        return transform(p, distance, size, v, patterns.get().nextAngle(), RIM_X, RIM_Y, RIM_RAYS);
+    }
+
+    /**
+     * returns beam of rays from a given point to a given target in the given direction.
+     * the pattern of the thread is rotated by a new angle on every call, so the lights and bounces
+     * of a pixel, and the pixels that were not seeded, don't share the same points of the disk
      *
      * @param p        the given point
      * @param distance the given distance of the black board
@@ -63,46 +212,139 @@ public class BlackBoard {
      */
     public List<Vector> beamOfRays(Point p, double distance, double size, Vector v) {
         if (isZero(size)) return List.of(v.scale(-1));
+        Pattern pattern = patternOf();
+        if (pattern.count == 0) return List.of(v.scale(-1));
+        return transform(p, distance, size, v, pattern.nextAngle(), pattern.xs, pattern.ys, pattern.count);
+    }
 
-        Vector right = calculateVerticalVector(v);
-        Vector up = v.crossProduct(right).normalize();
+    /**
+     * returns the sample pattern of the calling thread, generating it if it was seeded since the last beam
+     *
+     * @return the pattern
+     */
+    private Pattern patternOf() {
+        Pattern pattern = patterns.get();
+        int n = (int) Math.ceil(amountOfRays);
+        if (!pattern.valid || pattern.n != n) pattern.generate(sampler, n);
+        return pattern;
+    }
 
-        List<Vector> rayBeam = new LinkedList<>();
-        Point gridCenter = p.add(v.scale(-distance));
+    /**
+     * rotates points of the unit disk and transforms them to the disk of the light, and returns the rays to them.
+     * the disk is vertical to the given direction, at the given distance from the given point
+     *
+     * @param p        the given point
+     * @param distance the distance of the disk from the point
+     * @param size     the radius of the disk
+     * @param v        the direction from the disk to the point
+     * @param angle    the angle the points are rotated by
+     * @param xs       the coordinates of the points on the right axis of the disk
+     * @param ys       the coordinates of the points on the up axis of the disk
+     * @param count    the amount of points
+     * @return list of normalized directions from the point to the points on the disk
+     */
+    private static List<Vector> transform(Point p, double distance, double size, Vector v, double angle,
+                                          double[] xs, double[] ys, int count) {
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
 
-        double cellSize = (2 * size) / amountOfRays;
-        Point topLeft = gridCenter.add(right.scale(-size).add(up.scale(size)));
+        // right = v x X, or v x Y if v is parallel to X
+        double rx = 0, ry = vz, rz = -vy;
+        if (isZero(ry * ry + rz * rz)) {
+            rx = -vz;
+            ry = 0;
+            rz = vx;
+        }
+        double rLength = Math.sqrt(rx * rx + ry * ry + rz * rz);
+        rx /= rLength;
+        ry /= rLength;
+        rz /= rLength;
 
-        for (int i = 0; i < amountOfRays; i++) {
-            for (int j = 0; j < amountOfRays; j++) {
-                // Calculate the position within the grid
-                double x = (i + RANDOM.nextDouble()) * cellSize;
-                double y = -(j + RANDOM.nextDouble()) * cellSize;
+        // up = v x right
+        double ux = vy * rz - vz * ry, uy = vz * rx - vx * rz, uz = vx * ry - vy * rx;
+        double uLength = Math.sqrt(ux * ux + uy * uy + uz * uz);
+        ux /= uLength;
+        uy /= uLength;
+        uz /= uLength;
 
-                Point pIJ = topLeft;
-                if (!isZero(x)) pIJ = pIJ.add(right.scale(x));
-                if (!isZero(y)) pIJ = pIJ.add(up.scale(y));
+        // the center of the disk relative to the point
+        double cx = -vx * distance, cy = -vy * distance, cz = -vz * distance;
 
-                // Only add the ray if it is within the radius
-                if (gridCenter.distance(pIJ) <= size) {
-                    rayBeam.add(pIJ.subtract(p).normalize());
-                }
-            }
+        double cos = Math.cos(angle) * size, sin = Math.sin(angle) * size;
+        List<Vector> rayBeam = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            double x = xs[k] * cos - ys[k] * sin, y = xs[k] * sin + ys[k] * cos;
+            double dx = cx + rx * x + ux * y;
+            double dy = cy + ry * x + uy * y;
+            double dz = cz + rz * x + uz * y;
+            double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            rayBeam.add(new Vector(dx / length, dy / length, dz / length));
         }
         return rayBeam;
     }
 
     /**
-     * calculate a vector that is vertical to the given vector
-     *
-     * @param n the given vector
-     * @return a vertical vector to n
-     */
-    private static Vector calculateVerticalVector(Vector n) {
-        try {
-            return n.crossProduct(Vector.X).normalize();
-        } catch (IllegalArgumentException e) {
-            return n.crossProduct(Vector.Y).normalize();
+     * the sample points of a thread on the unit disk, shared by all the beams of a pixel,
+     * with the generator of the angle every beam rotates them by
+     */
+    private static class Pattern {
+        /**
+         * the amount of samples in a row of the grid the pattern was generated for
+         */
+        private int n = 0;
+        /**
+         * flag indicating whether the pattern was generated since the last seed
+         */
+        private boolean valid = false;
+        /**
+         * the amount of points of the grid inside the disk
+         */
+        private int count = 0;
+        /**
+         * the coordinates of the points inside the disk on the right axis
+         */
+        private double[] xs = new double[0];
+        /**
+         * the coordinates of the points inside the disk on the up axis
+         */
+        private double[] ys = new double[0];
+        /**
+         * the generator of the angles the beams are rotated by, seeded with the samples
+         */
+        private SplittableRandom rotations = new SplittableRandom();
+
+        /**
+         * draws the angle of the next beam
+         *
+         * @return the angle in radians
+         */
+        private double nextAngle() {
+            return 2 * Math.PI * rotations.nextDouble();
+        }
+
+        /**
+         * generates the points from a new set of samples of the grid
+         *
+         * @param sampler the generator of the samples
+         * @param n       the amount of samples in a row of the grid
+         */
+        private void generate(Sampler sampler, int n) {
+            if (xs.length < n * n) {
+                xs = new double[n * n];
+                ys = new double[n * n];
+            }
+            sampler.next(n, xs, ys);
+            // move the samples from the unit square to the square around the unit disk,
+            // keeping only the samples inside the disk
+            count = 0;
+            for (int k = 0; k < n * n; k++) {
+                double x = 2 * xs[k] - 1, y = 1 - 2 * ys[k];
+                if (x * x + y * y <= 1) {
+                    xs[count] = x;
+                    ys[count++] = y;
+                }
+            }
+            this.n = n;
+            valid = true;
         }
     }
 }
@@ -0,0 +1,76 @@
+package renderer;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * sampler of blue noise sets - points that are spread evenly without a regular pattern.
+ * a tile of points is generated once for every set size, by Mitchell's best candidate algorithm,
+ * and every set is the tile shifted by a random offset
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public class BlueNoiseSampler implements Sampler {
+    /**
+     * the amount of candidates for every point of a tile
+     */
+    private static final int CANDIDATES = 16;
+    /**
+     * the tiles of every set size, as x and y coordinates one after the other
+     */
+    private static final Map<Integer, double[]> TILES = new ConcurrentHashMap<>();
+    /**
+     * the random generator of the offsets of every thread
+     */
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(SplittableRandom::new);
+
+    @Override
+    public void seed(long seed) {
+        random.set(new SplittableRandom(seed));
+    }
+
+    @Override
+    public void next(int n, double[] xs, double[] ys) {
+        double[] tile = TILES.computeIfAbsent(n * n, BlueNoiseSampler::createTile);
+        SplittableRandom r = random.get();
+        double offsetX = r.nextDouble();
+        double offsetY = r.nextDouble();
+        for (int i = 0; i < n * n; i++) {
+            xs[i] = HaltonSampler.shift(tile[2 * i], offsetX);
+            ys[i] = HaltonSampler.shift(tile[2 * i + 1], offsetY);
+        }
+    }
+
+    /**
+     * creates a tile of blue noise points - every point is the candidate
+     * that is the farthest from the points before it, on a wrapping unit square
+     *
+     * @param size the amount of points
+     * @return the x and y coordinates of the points one after the other
+     */
+    private static double[] createTile(int size) {
+        SplittableRandom r = new SplittableRandom(size);
+        double[] tile = new double[2 * size];
+        for (int i = 0; i < size; i++) {
+            double bestDistance = -1;
+            for (int c = 0; c < CANDIDATES; c++) {
+                double x = r.nextDouble(), y = r.nextDouble();
+                double closest = Double.POSITIVE_INFINITY;
+                for (int k = 0; k < i; k++) {
+                    double dx = Math.abs(x - tile[2 * k]), dy = Math.abs(y - tile[2 * k + 1]);
+                    dx = Math.min(dx, 1 - dx);
+                    dy = Math.min(dy, 1 - dy);
+                    closest = Math.min(closest, dx * dx + dy * dy);
+                }
+                if (closest > bestDistance) {
+                    bestDistance = closest;
+                    tile[2 * i] = x;
+                    tile[2 * i + 1] = y;
+                }
+            }
+        }
+        return tile;
+    }
+}
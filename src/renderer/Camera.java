@@ -5,21 +5,35 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
-import java.util.LinkedList;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
 import java.util.MissingResourceException;
-import java.util.stream.IntStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 /**
  * this class represent the camera
- * and view plane
+ * and view plane.
+ * the camera is serialized for the workers of a distributed render without its image writer,
+ * ray tracer and listeners
  *
  * @author Ishai zigdon
  * @author Zaki zafrani
  */
-public class Camera implements Cloneable {
+public class Camera implements Cloneable, Serializable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * position of the camera
      */
@@ -55,24 +69,104 @@ public class Camera implements Cloneable {
     /**
      * the image writer with the resolution
      */
-    private ImageWriter imageWriter;
+    private transient ImageWriter imageWriter;
+    /**
+     * the queue the image is written by, or null for writing it in the calling thread
+     */
+    private transient ImageQueue imageQueue = null;
     /**
      * the ray tracer with the scene
      */
-    private RayTracerBase rayTracer;
+    private transient RayTracerBase rayTracer;
 
     /**
      * thread counter
      */
-    private int threadsCount = 0; // -2 auto, -1 range/stream, 0 no threads, 1+ number of threads
+    private int threadsCount = 0; // -3 virtual, -2 auto, -1 common fork join pool, 0 no threads, 1+ number of threads
     /**
      * boundary to the threads
      */
     private final int SPARE_THREADS = 2; // Spare threads if trying to use all the cores
+    /**
+     * the maximum amount of tiles rendered at the same time on virtual threads
+     */
+    private int virtualThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - SPARE_THREADS);
+    /**
+     * the width and height of the tiles the image is split into
+     */
+    private int tileSize = 16;
+    /**
+     * the order in which the tiles are rendered
+     */
+    private TileOrder tileOrder = TileOrder.HILBERT;
     /**
      * the percent of the project in the run
      */
     private double printInterval = 0;
+    /**
+     * the time budget of a render in milliseconds, 0 for unlimited
+     */
+    private long timeBudget = 0;
+    /**
+     * the minimal time between two checkpoints of a render in milliseconds, 0 for no checkpoints
+     */
+    private long checkpointInterval = 0;
+    /**
+     * flag indicating whether a render resumes the saved checkpoint of the image
+     */
+    private boolean resume = false;
+    /**
+     * the area of the image that is rendered, or null for the whole image
+     */
+    private Tile crop = null;
+    /**
+     * the width and height of the pixel blocks colored by a single ray after the time budget is over
+     */
+    private static final int COARSE_BLOCK = 4;
+    /**
+     * the maximal amount of times a pixel is subdivided by the adaptive anti-aliasing, 0 for no anti-aliasing
+     */
+    private int antiAliasingDepth = 0;
+    /**
+     * the difference between the colors of the corners of a pixel (0-255) above which it is subdivided
+     */
+    private double antiAliasingThreshold = 16;
+    /**
+     * the minimal amount of rays through a pixel in the adaptive sampling
+     */
+    private int minSamples = 0;
+    /**
+     * the maximal amount of rays through a pixel in the adaptive sampling, 0 for no adaptive sampling
+     */
+    private int maxSamples = 0;
+    /**
+     * the standard error of the luminance of a pixel (0-255) below which no more rays are cast through it
+     */
+    private double sampleThreshold = 0;
+    /**
+     * the image the amount of rays through every pixel is written to, or null
+     */
+    private transient ImageWriter sampleMap = null;
+    /**
+     * the size of the pixel blocks colored by a single ray in every pass of the progressive rendering
+     */
+    private static final int[] PROGRESSIVE_STEPS = {4, 2, 1};
+    /**
+     * the listener for the frames of the progressive rendering, or null for rendering in a single pass
+     */
+    private transient FrameListener frameListener = null;
+    /**
+     * the amount of extra jittered rays through every pixel in the progressive rendering
+     */
+    private int progressiveSamples = 0;
+    /**
+     * the listener for the progress of the renders, or null to use the console printing
+     */
+    private transient ProgressListener progressListener = null;
+    /**
+     * the interval between two progress reports in milliseconds
+     */
+    private long reportInterval = 100;
 
     /**
      * making the default constructor private
@@ -162,6 +256,20 @@ public class Camera implements Cloneable {
      * @return the ray
      */
     public Ray constructRay(int nX, int nY, int j, int i) {
+        return constructRay(nX, nY, (double) j, (double) i);
+    }
+
+    /**
+     * constructing a ray through a given point inside a pixel,
+     * where whole numbers are the middle of the pixels
+     *
+     * @param nX width of pixel
+     * @param nY height of pixel
+     * @param j  column, may be fractional
+     * @param i  line, may be fractional
+     * @return the ray
+     */
+    private Ray constructRay(int nX, int nY, double j, double i) {
         double rY = viewPlaneHeight / nY;
         double rX = viewPlaneWidth / nX;
 
@@ -178,40 +286,401 @@ public class Camera implements Cloneable {
     }
 
     /**
-     * render the image and color each pixel
+     * render the image and color each pixel.
+     * interrupting the calling thread cancels the render, leaving the remaining pixels unwritten
      *
      * @return the updated camera
      */
     public Camera renderImage() {
-        final int nY = imageWriter.getNy();
-        final int nX = imageWriter.getNx();
-        Pixel.initialize(nY, nX, printInterval);
-        if (threadsCount == 0) {
-            for (int i = 0; i < nY; i++)
-                for (int j = 0; j < nX; j++)
-                    castRay(nX, nY, j, i);
-        } else if (threadsCount == -1) {
-            IntStream.range(0, nY).parallel() //
-                    .forEach(i -> IntStream.range(0, nX).parallel() //
-                            .forEach(j -> castRay(nX, nY, j, i)));
-        } else {
-            int count = threadsCount;
-            var threads = new LinkedList<Thread>();
-            while (count-- > 0) {
-                threads.add(new Thread(() -> {
-                    Pixel pixel;
-                    while ((pixel = Pixel.nextPixel()) != null) {
-                        castRay(nX, nY, pixel.col(), pixel.row());
-                    }
-                }));
+        render(createContext());
+        return this;
+    }
+
+    /**
+     * render the image in the background
+     *
+     * @return handle for cancelling the render and waiting for it to complete
+     */
+    public RenderHandle renderImageAsync() {
+        final RenderContext context = createContext();
+        RenderHandle handle = new RenderHandle(context);
+        Thread.ofPlatform().name("render").start(() -> {
+            try {
+                render(context);
+                handle.done(this, null);
+            } catch (Throwable e) {
+                handle.done(this, e);
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * splits the rendered area of the image into rectangles of whole tiles for the workers of a distributed render
+     *
+     * @param tiles the width and height of a rectangle in tiles
+     * @return the rectangles, in the tile order
+     */
+    List<Tile> regions(int tiles) {
+        Tile area = crop != null ? crop : new Tile(0, 0, imageWriter.getNx(), imageWriter.getNy());
+        return new TileScheduler(area.x(), area.y(), area.width(), area.height(), tileSize * tiles, tileOrder)
+                .getTiles();
+    }
+
+    /**
+     * get function for the image writer
+     *
+     * @return the image writer
+     */
+    ImageWriter getImageWriter() {
+        return imageWriter;
+    }
+
+    /**
+     * renders a rectangle of the image on a worker of a distributed render,
+     * with the threads and sampling of the camera but without checkpoints and progress
+     *
+     * @param rayTracer the ray tracer of the worker
+     * @param nX        the amount of columns in the image
+     * @param nY        the amount of rows in the image
+     * @param region    the rectangle
+     * @return the red, green and blue components of the pixels of the rectangle, row by row
+     */
+    float[] renderRegion(RayTracerBase rayTracer, int nX, int nY, Tile region) {
+        WindowFrameBuffer window = new WindowFrameBuffer(nX, region);
+        // the region is rendered by a copy, so the camera keeps its own ray tracer, image and settings
+        Camera copy;
+        try {
+            copy = (Camera) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // never reached code
+        }
+        copy.rayTracer = rayTracer;
+        copy.imageWriter = new ImageWriter("region", nX, nY, window);
+        copy.crop = region;
+        copy.checkpointInterval = 0;
+        copy.printInterval = 0;
+        copy.render(copy.createContext());
+        return window.getComponents();
+    }
+
+    /**
+     * creates the state of a new render of the image
+     *
+     * @return the state of the render
+     */
+    private RenderContext createContext() {
+        ProgressListener listener = progressListener != null ? progressListener
+                : printInterval != 0 ? ProgressListener.console(printInterval) : null;
+        int nX = imageWriter.getNx(), nY = imageWriter.getNy();
+        Tile area = crop != null ? crop : new Tile(0, 0, nX, nY);
+        return new RenderContext(nX, nY, area, listener, reportInterval, timeBudget);
+    }
+
+    /**
+     * render the image with the chosen threads, in a single pass or progressively
+     *
+     * @param context the state of the render
+     */
+    private void render(RenderContext context) {
+        rayTracer.prepare();
+        Tile area = context.area;
+        TileScheduler scheduler = new TileScheduler(area.x(), area.y(), area.width(), area.height(),
+                tileSize, tileOrder);
+        Checkpoint checkpoint = checkpointInterval == 0 || frameListener != null ? null
+                : new Checkpoint(imageWriter, area, tileSize, checkpointInterval, resume);
+        Throwable thrown = null;
+        try {
+            if (frameListener == null)
+                renderTiles(context, scheduler, tile -> {
+                    if (checkpoint != null && checkpoint.isDone(tile))
+                        context.pixelsDone((long) tile.width() * tile.height());
+                    else if (renderTile(context, tile) && checkpoint != null)
+                        checkpoint.tileDone(tile);
+                    if (!context.isCancelled())
+                        imageWriter.tileDone(tile.x(), tile.y(), tile.width(), tile.height());
+                });
+            else
+                renderProgressive(context, scheduler);
+        } catch (Throwable e) {
+            thrown = e;
+            throw e;
+        } finally {
+            context.finish();
+            if (checkpoint != null) {
+                try {
+                    if (checkpoint.isComplete()) checkpoint.delete();
+                    else checkpoint.save();
+                } catch (RuntimeException e) {
+                    // a failed save must not hide the failure of the render
+                    if (thrown == null) throw e;
+                    thrown.addSuppressed(e);
+                }
             }
-            for (var thread : threads) thread.start();
+        }
+    }
+
+    /**
+     * render all the tiles of the image with the chosen threads
+     *
+     * @param context   the state of the render
+     * @param scheduler the tiles of the image
+     * @param action    the rendering of a single tile
+     */
+    private void renderTiles(RenderContext context, TileScheduler scheduler, Consumer<Tile> action) {
+        if (threadsCount == 0)
+            scheduler.render(action);
+        else if (threadsCount == -1)
+            scheduler.render(ForkJoinPool.commonPool(), action, context::cancel);
+        else if (threadsCount == -3)
+            scheduler.renderOnVirtualThreads(virtualThreads, action, context::cancel);
+        else {
+            ForkJoinPool pool = new ForkJoinPool(threadsCount);
             try {
-                for (var thread : threads) thread.join();
-            } catch (InterruptedException ignore) {
+                scheduler.render(pool, action, context::cancel);
+            } finally {
+                pool.shutdown();
             }
         }
-        return this;
+    }
+
+    /**
+     * render the image in passes from coarse to fine - a ray through every 4x4 pixels,
+     * then every 2x2 pixels, then every pixel, and then extra jittered rays through every pixel -
+     * and publish the image to the frame listener after every pass.
+     * after the time budget is over no more passes are started
+     *
+     * @param context   the state of the render
+     * @param scheduler the tiles of the image
+     */
+    private void renderProgressive(RenderContext context, TileScheduler scheduler) {
+        final int passes = PROGRESSIVE_STEPS.length + progressiveSamples;
+        final Color[] sums = progressiveSamples == 0 ? null : new Color[context.nX * context.nY];
+        for (int pass = 0; pass < passes; pass++) {
+            if (context.isCancelled() || (pass > 0 && context.isOverBudget())) return;
+            final int currentPass = pass;
+            renderTiles(context, scheduler, tile -> renderTilePass(context, tile, currentPass, sums));
+            if (context.isCancelled()) return;
+            frameListener.frame(imageWriter.toImage(), pass, passes);
+        }
+    }
+
+    /**
+     * render a single pass of the progressive rendering in a given tile
+     *
+     * @param context the render the tile belongs to
+     * @param tile    the tile
+     * @param pass    the index of the pass
+     * @param sums    the sum of the colors of every pixel, or null if there are no extra passes
+     */
+    private void renderTilePass(RenderContext context, Tile tile, int pass, Color[] sums) {
+        if (Thread.currentThread().isInterrupted()) context.cancel();
+        if (context.isCancelled()) return;
+        int endY = tile.y() + tile.height();
+        int endX = tile.x() + tile.width();
+        for (int i = tile.y(); i < endY; i++)
+            for (int j = tile.x(); j < endX; j++) {
+                int index = i * context.nX + j;
+                if (pass >= PROGRESSIVE_STEPS.length) {
+                    // extra jittered sample, averaged with the samples of the former passes
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    Color color = traceRay(context, j + random.nextDouble() - 0.5, i + random.nextDouble() - 0.5);
+                    sums[index] = sums[index].add(color);
+                    imageWriter.writePixel(j, i, sums[index].reduce(pass - PROGRESSIVE_STEPS.length + 2));
+                    continue;
+                }
+                // trace only the pixels that were not traced by a coarser pass
+                int step = PROGRESSIVE_STEPS[pass];
+                int di = i - tile.y(), dj = j - tile.x();
+                if (di % step != 0 || dj % step != 0
+                        || (pass > 0 && di % (step * 2) == 0 && dj % (step * 2) == 0))
+                    continue;
+                Color color = traceRay(context, j, i);
+                for (int y = i; y < Math.min(i + step, endY); y++)
+                    for (int x = j; x < Math.min(j + step, endX); x++)
+                        imageWriter.writePixel(x, y, color);
+                if (sums != null) sums[index] = color;
+                context.pixelDone();
+            }
+    }
+
+    /**
+     * cast a ray through every pixel of a given tile.
+     * after the time budget is over, a single ray is cast through every block of pixels instead
+     *
+     * @param context the render the tile belongs to
+     * @param tile    the tile
+     * @return true if every pixel of the tile was rendered, false if the tile was skipped or coarse
+     */
+    private boolean renderTile(RenderContext context, Tile tile) {
+        if (Thread.currentThread().isInterrupted()) context.cancel();
+        if (context.isCancelled()) return false;
+        if (context.isOverBudget()) {
+            renderTileCoarse(context, tile);
+            return false;
+        }
+        if (maxSamples > 0) {
+            for (int i = tile.y(); i < tile.y() + tile.height(); i++)
+                for (int j = tile.x(); j < tile.x() + tile.width(); j++)
+                    castRaysAdaptive(context, j, i);
+            return true;
+        }
+        if (antiAliasingDepth > 0) {
+            renderTileAdaptive(context, tile);
+            return true;
+        }
+        for (int i = tile.y(); i < tile.y() + tile.height(); i++)
+            for (int j = tile.x(); j < tile.x() + tile.width(); j++)
+                castRay(context, j, i);
+        return true;
+    }
+
+    /**
+     * cast jittered rays through a given pixel until the estimated variance of its color is low enough,
+     * and colors it by their average.
+     * the first ray passes through the middle of the pixel, and the amount of rays is written to the sample map
+     *
+     * @param context the render the pixel belongs to
+     * @param j       the x parameter
+     * @param i       the y parameter
+     */
+    private void castRaysAdaptive(RenderContext context, int j, int i) {
+        SplittableRandom random = new SplittableRandom((long) i * context.nX + j);
+        double varianceThreshold = sampleThreshold * sampleThreshold;
+        Color sum = Color.BLACK;
+        double mean = 0, squares = 0;
+        int n = 0;
+        do {
+            double dj = n == 0 ? 0 : random.nextDouble() - 0.5;
+            double di = n == 0 ? 0 : random.nextDouble() - 0.5;
+            Color color = traceRay(context, j + dj, i + di);
+            sum = sum.add(color);
+            // running mean and variance of the luminance (Welford)
+            double y = color.luminance();
+            double delta = y - mean;
+            mean += delta / ++n;
+            squares += delta * (y - mean);
+        } while (n < maxSamples && (n < minSamples || n < 2 || squares / (n - 1) / n > varianceThreshold));
+
+        imageWriter.writePixel(j, i, sum.reduce(n));
+        if (sampleMap != null) {
+            double level = 255d * n / maxSamples;
+            sampleMap.writePixel(j, i, new Color(level, level, level));
+        }
+        context.pixelDone();
+    }
+
+    /**
+     * color every pixel of a given tile by the rays through its corners,
+     * subdividing the pixels whose corners differ in color.
+     * the rays through the corners are shared by the neighbouring pixels of the tile
+     *
+     * @param context the render the tile belongs to
+     * @param tile    the tile
+     */
+    private void renderTileAdaptive(RenderContext context, Tile tile) {
+        int width = tile.width() + 1;
+        Color[] corners = new Color[width * (tile.height() + 1)];
+        for (int y = 0; y <= tile.height(); y++)
+            for (int x = 0; x < width; x++)
+                corners[y * width + x] = traceRay(context, tile.x() + x - 0.5, tile.y() + y - 0.5);
+
+        for (int y = 0; y < tile.height(); y++)
+            for (int x = 0; x < tile.width(); x++) {
+                int corner = y * width + x;
+                Color color = sampleSquare(context, tile.x() + x, tile.y() + y, 1,
+                        corners[corner], corners[corner + 1], corners[corner + width], corners[corner + width + 1],
+                        antiAliasingDepth);
+                imageWriter.writePixel(tile.x() + x, tile.y() + y, color);
+                context.pixelDone();
+            }
+    }
+
+    /**
+     * calculates the average color of a square on the view plane from the colors of its corners.
+     * if the corners differ more than the threshold, the square is split into four squares recursively
+     *
+     * @param context     the render the square belongs to
+     * @param j           the column of the middle of the square
+     * @param i           the line of the middle of the square
+     * @param size        the width and height of the square in pixels
+     * @param topLeft     the color of the top left corner
+     * @param topRight    the color of the top right corner
+     * @param bottomLeft  the color of the bottom left corner
+     * @param bottomRight the color of the bottom right corner
+     * @param depth       the amount of subdivisions left
+     * @return the average color of the square
+     */
+    private Color sampleSquare(RenderContext context, double j, double i, double size,
+                               Color topLeft, Color topRight, Color bottomLeft, Color bottomRight, int depth) {
+        if (depth == 0 || !differ(topLeft, topRight, bottomLeft, bottomRight))
+            return topLeft.add(topRight, bottomLeft, bottomRight).reduce(4);
+
+        double half = size / 2;
+        double quarter = size / 4;
+        Color top = traceRay(context, j, i - half);
+        Color bottom = traceRay(context, j, i + half);
+        Color left = traceRay(context, j - half, i);
+        Color right = traceRay(context, j + half, i);
+        Color center = traceRay(context, j, i);
+        return sampleSquare(context, j - quarter, i - quarter, half, topLeft, top, left, center, depth - 1)
+                .add(sampleSquare(context, j + quarter, i - quarter, half, top, topRight, center, right, depth - 1),
+                        sampleSquare(context, j - quarter, i + quarter, half, left, center, bottomLeft, bottom, depth - 1),
+                        sampleSquare(context, j + quarter, i + quarter, half, center, right, bottom, bottomRight, depth - 1))
+                .reduce(4);
+    }
+
+    /**
+     * checking if the colors of the corners of a square differ more than the anti-aliasing threshold
+     *
+     * @param c1 the 1st corner
+     * @param c2 the 2nd corner
+     * @param c3 the 3rd corner
+     * @param c4 the 4th corner
+     * @return true if they do, false if not
+     */
+    private boolean differ(Color c1, Color c2, Color c3, Color c4) {
+        return c1.difference(c2) > antiAliasingThreshold || c1.difference(c3) > antiAliasingThreshold
+                || c1.difference(c4) > antiAliasingThreshold || c2.difference(c3) > antiAliasingThreshold
+                || c2.difference(c4) > antiAliasingThreshold || c3.difference(c4) > antiAliasingThreshold;
+    }
+
+    /**
+     * trace a ray through a given point on the view plane and count it.
+     * the samples of the ray tracer are seeded by the point, so it gets the same samples in every render
+     *
+     * @param context the render the ray belongs to
+     * @param j       the column of the point, may be fractional
+     * @param i       the line of the point, may be fractional
+     * @return the color of the ray
+     */
+    private Color traceRay(RenderContext context, double j, double i) {
+        context.raysCast(1);
+        rayTracer.seed(Double.doubleToLongBits(i) * 0x9E3779B97F4A7C15L ^ Double.doubleToLongBits(j));
+        return rayTracer.traceRay(constructRay(context.nX, context.nY, j, i));
+    }
+
+    /**
+     * cast a single ray through the middle of every block of pixels in a given tile,
+     * and color the whole block with its color
+     *
+     * @param context the render the tile belongs to
+     * @param tile    the tile
+     */
+    private void renderTileCoarse(RenderContext context, Tile tile) {
+        int endY = tile.y() + tile.height();
+        int endX = tile.x() + tile.width();
+        for (int i = tile.y(); i < endY; i += COARSE_BLOCK)
+            for (int j = tile.x(); j < endX; j += COARSE_BLOCK) {
+                int blockH = Math.min(COARSE_BLOCK, endY - i);
+                int blockW = Math.min(COARSE_BLOCK, endX - j);
+                Color color = traceRay(context, j + (blockW - 1) / 2.0, i + (blockH - 1) / 2.0);
+                for (int y = i; y < i + blockH; y++)
+                    for (int x = j; x < j + blockW; x++) {
+                        imageWriter.writePixel(x, y, color);
+                        context.pixelDone();
+                    }
+            }
     }
 
     /**
@@ -266,23 +735,37 @@ public class Camera implements Cloneable {
     /**
      * cast a ray through a given pixel and colors it
      *
-     * @param nX the width of the pixel
-     * @param nY the height of the pixel
-     * @param j  the x parameter
-     * @param i  the y parameter
-     */
-    private void castRay(int nX, int nY, int j, int i) {
-        Ray ray = constructRay(nX, nY, j, i);
-        Color color = rayTracer.traceRay(ray);
+     * @param context the render the pixel belongs to
+     * @param j       the x parameter
+     * @param i       the y parameter
+     */
+    private void castRay(RenderContext context, int j, int i) {
+        Color color = traceRay(context, j, i);
         imageWriter.writePixel(j, i, color);
-        Pixel.pixelDone();
+        context.pixelDone();
     }
 
     /**
-     * write to image for camera
+     * write to image for camera.
+     * with an image queue the image is only added to the queue,
+     * and the image writer must not be changed until it is written
      */
     public void writeToImage() {
+        writeToImageAsync();
+    }
+
+    /**
+     * write to image for camera, with a future for the end of the write.
+     * with an image queue the image is only added to the queue,
+     * and the image writer must not be changed until the future is completed
+     *
+     * @return a future that is completed when the queue wrote the image, or completed exceptionally if it failed,
+     * or a completed future if the image was written in the calling thread
+     */
+    public CompletableFuture<Void> writeToImageAsync() {
+        if (imageQueue != null) return imageQueue.submit(imageWriter);
         imageWriter.writeToImage();
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
@@ -391,6 +874,61 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * function for set checkpoints - saving the rendered tiles and their pixels next to the image
+         * every given time, so a render that crashed can be resumed without rendering them again.
+         * the checkpoint is deleted when a render is complete, and is not used by a progressive render
+         *
+         * @param interval the minimal time between two checkpoints in milliseconds, 0 for no checkpoints
+         * @param resume   true for resuming the saved checkpoint of the image if there is one
+         * @return builder with the given checkpoints
+         */
+        public Builder setCheckpoint(long interval, boolean resume) {
+            if (interval < 0) throw new IllegalArgumentException("checkpoint interval must not be negative");
+            camera.checkpointInterval = interval;
+            camera.resume = resume;
+            return this;
+        }
+
+        /**
+         * function for set crop - rendering only the pixels in a rectangle of the image.
+         * the other pixels of the image writer are kept, so the rectangle can be rendered again
+         * into an image that was rendered before, like one read by {@link ImageWriter#readPng(String)}
+         *
+         * @param x      the column of the top left pixel of the rectangle
+         * @param y      the row of the top left pixel of the rectangle
+         * @param width  the amount of columns in the rectangle
+         * @param height the amount of rows in the rectangle
+         * @return builder with the given crop
+         */
+        public Builder setCrop(int x, int y, int width, int height) {
+            if (x < 0 || y < 0) throw new IllegalArgumentException("crop must start in the image");
+            if (width <= 0 || height <= 0) throw new IllegalArgumentException("crop must not be empty");
+            camera.crop = new Tile(x, y, width, height);
+            return this;
+        }
+
+        /**
+         * function for removing the crop, so the whole image is rendered
+         *
+         * @return builder without a crop
+         */
+        public Builder clearCrop() {
+            camera.crop = null;
+            return this;
+        }
+
+        /**
+         * function for set image queue - writing the image in the background
+         *
+         * @param imageQueue the image queue, or null for writing the image in the calling thread
+         * @return builder with given image queue
+         */
+        public Builder setImageQueue(ImageQueue imageQueue) {
+            camera.imageQueue = imageQueue;
+            return this;
+        }
+
         /**
          * function for set rayTracer
          *
@@ -409,8 +947,8 @@ public class Camera implements Cloneable {
          * @return the builder with the given position of the thread usage
          */
         public Builder setMultithreading(int threads) {
-            if (threads < -2) throw new IllegalArgumentException("Multithreading must be -2 or higher");
-            if (threads >= -1) camera.threadsCount = threads;
+            if (threads < -3) throw new IllegalArgumentException("Multithreading must be -3 or higher");
+            if (threads >= -1 || threads == -3) camera.threadsCount = threads;
             else { // == -2
                 int cores = Runtime.getRuntime().availableProcessors() - camera.SPARE_THREADS;
                 camera.threadsCount = cores <= 2 ? 1 : cores;
@@ -418,6 +956,45 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * function to render the tiles on virtual threads, sharing the carrier threads of the JVM
+         * with other renders instead of starting platform threads for each render.
+         * every virtual thread renders many tiles, one after the other
+         *
+         * @param parallelism the amount of virtual threads, the maximum amount of tiles of a render
+         *                    in progress at the same time
+         * @return the builder with virtual threads rendering
+         */
+        public Builder setVirtualThreads(int parallelism) {
+            if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be greater than 0");
+            camera.threadsCount = -3;
+            camera.virtualThreads = parallelism;
+            return this;
+        }
+
+        /**
+         * function to set the size of the tiles the image is split into for rendering
+         *
+         * @param tileSize the width and height of a tile in pixels
+         * @return the builder with the given tile size
+         */
+        public Builder setTileSize(int tileSize) {
+            if (tileSize <= 0) throw new IllegalArgumentException("tile size must be greater than 0");
+            camera.tileSize = tileSize;
+            return this;
+        }
+
+        /**
+         * function to set the order in which the tiles are rendered
+         *
+         * @param tileOrder the order of the tiles
+         * @return the builder with the given tile order
+         */
+        public Builder setTileOrder(TileOrder tileOrder) {
+            camera.tileOrder = tileOrder;
+            return this;
+        }
+
         /**
          * function to print the percent of the project while it is running
          *
@@ -429,6 +1006,97 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * function to limit the time of a render. after the budget is over,
+         * the remaining tiles are rendered at reduced quality
+         *
+         * @param millis the time budget in milliseconds, 0 for unlimited
+         * @return the builder with the given time budget
+         */
+        public Builder setTimeBudget(long millis) {
+            if (millis < 0) throw new IllegalArgumentException("time budget must not be negative");
+            camera.timeBudget = millis;
+            return this;
+        }
+
+        /**
+         * function to set adaptive anti-aliasing - rays are cast through the corners of the pixels,
+         * and a pixel is split into four recursively while the colors of its corners differ
+         *
+         * @param depth     the maximal amount of subdivisions of a pixel, 0 for no anti-aliasing
+         * @param threshold the difference between the colors of the corners (0-255) above which a pixel is split
+         * @return the builder with the given anti-aliasing
+         */
+        public Builder setAntiAliasing(int depth, double threshold) {
+            if (depth < 0) throw new IllegalArgumentException("anti-aliasing depth must not be negative");
+            if (threshold < 0) throw new IllegalArgumentException("anti-aliasing threshold must not be negative");
+            camera.antiAliasingDepth = depth;
+            camera.antiAliasingThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * function to set adaptive sampling - jittered rays are cast through every pixel
+         * until the standard error of its luminance falls below the threshold
+         *
+         * @param minSamples the minimal amount of rays through a pixel
+         * @param maxSamples the maximal amount of rays through a pixel, 0 for no adaptive sampling
+         * @param threshold  the standard error of the luminance (0-255) to stop at
+         * @return the builder with the given adaptive sampling
+         */
+        public Builder setAdaptiveSampling(int minSamples, int maxSamples, double threshold) {
+            if (minSamples < 1 && maxSamples > 0)
+                throw new IllegalArgumentException("minimal amount of samples must be at least 1");
+            if (maxSamples < minSamples && maxSamples != 0)
+                throw new IllegalArgumentException("maximal amount of samples must not be lower than the minimal");
+            if (threshold < 0) throw new IllegalArgumentException("sampling threshold must not be negative");
+            camera.minSamples = minSamples;
+            camera.maxSamples = maxSamples;
+            camera.sampleThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * function to set the image the amount of rays through every pixel is written to
+         * in the adaptive sampling - white for the maximal amount, black for none
+         *
+         * @param sampleMap the image of the sample map, with the resolution of the rendered image
+         * @return the builder with the given sample map
+         */
+        public Builder setSampleMap(ImageWriter sampleMap) {
+            camera.sampleMap = sampleMap;
+            return this;
+        }
+
+        /**
+         * function to render the image progressively - first through every 4x4 pixels,
+         * then every 2x2 pixels, then every pixel, and then extra jittered rays through every pixel
+         *
+         * @param listener     the listener for the image after every pass, or null for a single pass
+         * @param extraSamples the amount of extra jittered rays through every pixel
+         * @return the builder with the progressive rendering
+         */
+        public Builder setProgressive(FrameListener listener, int extraSamples) {
+            if (extraSamples < 0) throw new IllegalArgumentException("extra samples must not be negative");
+            camera.frameListener = listener;
+            camera.progressiveSamples = extraSamples;
+            return this;
+        }
+
+        /**
+         * function to receive the progress of the renders, instead of printing it to the console
+         *
+         * @param listener the listener for the progress, called from a separate reporter thread
+         * @param interval the interval between two reports in milliseconds
+         * @return the builder with the given listener
+         */
+        public Builder setProgressListener(ProgressListener listener, long interval) {
+            if (interval <= 0) throw new IllegalArgumentException("report interval must be greater than 0");
+            camera.progressListener = listener;
+            camera.reportInterval = interval;
+            return this;
+        }
+
         /**
          * function to check and build camera with valid values
          *
@@ -458,6 +1126,9 @@ public class Camera implements Cloneable {
             if (!fields.isEmpty())
                 throw new MissingResourceException(message + fields, camera.getClass().getName(), "");
 
+            if (camera.crop != null && (camera.crop.x() + camera.crop.width() > camera.imageWriter.getNx()
+                    || camera.crop.y() + camera.crop.height() > camera.imageWriter.getNy()))
+                throw new IllegalArgumentException("crop must be inside the image");
             if (!isZero(camera.vTo.dotProduct(camera.vUp)))
                 throw new IllegalArgumentException("camera vectors must be vertical to each other");
             if (camera.vRight == null)
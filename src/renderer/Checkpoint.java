@@ -0,0 +1,238 @@
+package renderer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * checkpoint of a render, for resuming it after a crash.
+ * the pixels of the image are saved in a pfm file next to the image, with a file of the tiles
+ * that were done when it was saved. the tiles are taken before the pixels are saved,
+ * and every file replaces the former one only after it is fully written,
+ * so the saved tiles always have their final pixels in the saved image.
+ * the checkpoints during the render are saved by a background thread, so the render threads keep tracing
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class Checkpoint {
+    /**
+     * the image of the render
+     */
+    private final ImageWriter imageWriter;
+    /**
+     * the area of the image that is rendered
+     */
+    private final Tile area;
+    /**
+     * the width and height of the tiles
+     */
+    private final int tileSize;
+    /**
+     * the amount of tiles in a row
+     */
+    private final int tilesX;
+    /**
+     * the minimal time between two saves in nanoseconds
+     */
+    private final long interval;
+    /**
+     * the file of the saved pixels
+     */
+    private final File pixelsFile;
+    /**
+     * the file of the saved tiles
+     */
+    private final File tilesFile;
+    /**
+     * the tiles that are done, by their index in rows
+     */
+    private final BitSet done = new BitSet();
+    /**
+     * the queue the checkpoints during the render are saved by
+     */
+    private final ImageQueue background = new ImageQueue(1);
+    /**
+     * flag indicating whether a checkpoint is waiting in the queue or being saved
+     */
+    private boolean pending = false;
+    /**
+     * the time of the last save
+     */
+    private volatile long lastSave = System.nanoTime();
+    /**
+     * logger for reporting checkpoints that can't be resumed
+     */
+    private static final Logger logger = Logger.getLogger("Checkpoint");
+
+    /**
+     * ctor that loads the saved checkpoint of the image if there is one and it should be resumed
+     *
+     * @param imageWriter the image of the render
+     * @param area        the area of the image that is rendered
+     * @param tileSize    the width and height of the tiles
+     * @param interval    the minimal time between two saves in milliseconds
+     * @param resume      true for resuming a saved checkpoint, false for starting from scratch
+     */
+    Checkpoint(ImageWriter imageWriter, Tile area, int tileSize, long interval, boolean resume) {
+        this.imageWriter = imageWriter;
+        this.area = area;
+        this.tileSize = tileSize;
+        this.interval = interval * 1_000_000;
+        tilesX = (area.width() + tileSize - 1) / tileSize;
+        pixelsFile = imageWriter.fileOf(".checkpoint.pfm");
+        tilesFile = imageWriter.fileOf(".checkpoint.tiles");
+        if (resume && pixelsFile.exists() && tilesFile.exists()) load();
+    }
+
+    /**
+     * loads the saved tiles and their pixels, unless they were saved for another image, area or tile size
+     */
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(tilesFile)))) {
+            if (in.readInt() != imageWriter.getNx() || in.readInt() != imageWriter.getNy()
+                    || in.readInt() != area.x() || in.readInt() != area.y()
+                    || in.readInt() != area.width() || in.readInt() != area.height()
+                    || in.readInt() != tileSize) {
+                logger.warning("checkpoint of another resolution, area or tile size is ignored: " + tilesFile);
+                return;
+            }
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) words[i] = in.readLong();
+            if (!imageWriter.loadPixels(pixelsFile)) {
+                logger.warning("checkpoint of another resolution is ignored: " + pixelsFile);
+                return;
+            }
+            done.or(BitSet.valueOf(words));
+        } catch (IOException | IllegalStateException e) {
+            logger.log(Level.WARNING, "checkpoint can't be read and is ignored", e);
+        }
+    }
+
+    /**
+     * the index of a tile in rows of the area
+     *
+     * @param tile the tile
+     * @return the index
+     */
+    private int indexOf(Tile tile) {
+        return (tile.y() - area.y()) / tileSize * tilesX + (tile.x() - area.x()) / tileSize;
+    }
+
+    /**
+     * checking if a tile was done, in this render or in the resumed one
+     *
+     * @param tile the tile
+     * @return true if it was, false if not
+     */
+    synchronized boolean isDone(Tile tile) {
+        return done.get(indexOf(tile));
+    }
+
+    /**
+     * checking if all the tiles of the area are done
+     *
+     * @return true if they are, false if not
+     */
+    synchronized boolean isComplete() {
+        int tilesY = (area.height() + tileSize - 1) / tileSize;
+        return done.cardinality() == tilesX * tilesY;
+    }
+
+    /**
+     * marks a tile as done, and if the interval since the last save is over and no checkpoint is being saved,
+     * hands a checkpoint of the tiles that are done now to the background thread
+     *
+     * @param tile the tile
+     */
+    void tileDone(Tile tile) {
+        long[] words;
+        synchronized (this) {
+            done.set(indexOf(tile));
+            if (pending || System.nanoTime() - lastSave < interval) return;
+            pending = true;
+            words = done.toLongArray();
+        }
+        background.submit(() -> {
+            try {
+                saveTiles(words);
+            } finally {
+                lastSave = System.nanoTime();
+                synchronized (this) {
+                    pending = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * waits for the checkpoint that is saved in the background, and saves the checkpoint
+     * of the tiles that are done now in the calling thread
+     */
+    void save() {
+        finishBackground();
+        long[] words;
+        synchronized (this) {
+            words = done.toLongArray();
+        }
+        saveTiles(words);
+    }
+
+    /**
+     * waits for the checkpoint that is saved in the background and stops the background thread.
+     * a failed checkpoint is only reported, since the final save or the deletion replaces it,
+     * and an interrupt doesn't stop the waiting, so two saves never write the files at the same time
+     */
+    private void finishBackground() {
+        boolean interrupted = Thread.interrupted();
+        try {
+            background.close();
+        } catch (IllegalStateException e) {
+            logger.log(Level.WARNING, "a checkpoint could not be saved", e);
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * saves the pixels and then the given tiles
+     *
+     * @param words the bits of the tiles that are done
+     */
+    private void saveTiles(long[] words) {
+        imageWriter.savePixels(pixelsFile);
+        File temp = new File(tilesFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(imageWriter.getNx());
+            out.writeInt(imageWriter.getNy());
+            out.writeInt(area.x());
+            out.writeInt(area.y());
+            out.writeInt(area.width());
+            out.writeInt(area.height());
+            out.writeInt(tileSize);
+            out.writeInt(words.length);
+            for (long word : words) out.writeLong(word);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error writing " + tilesFile, e);
+        }
+        try {
+            Files.move(temp.toPath(), tilesFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error writing " + tilesFile, e);
+        }
+    }
+
+    /**
+     * waits for the checkpoint that is saved in the background, and deletes the saved checkpoint
+     * after the render is complete
+     */
+    void delete() {
+        finishBackground();
+        pixelsFile.delete();
+        tilesFile.delete();
+    }
+}
@@ -0,0 +1,33 @@
+package renderer;
+
+/**
+ * interface for the storage of the pixels of an {@link ImageWriter} -
+ * the red, green and blue components of every pixel, row by row, without limiting them to 255.
+ * every pixel is written by a single thread, so the storage doesn't need synchronization
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+interface FrameBuffer {
+    /**
+     * reads a component of a pixel
+     *
+     * @param index the index of the component - 3 times the index of the pixel, plus 0 to 2
+     * @return the component
+     */
+    float get(long index);
+
+    /**
+     * writes a component of a pixel
+     *
+     * @param index the index of the component - 3 times the index of the pixel, plus 0 to 2
+     * @param value the component
+     */
+    void set(long index, float value);
+
+    /**
+     * makes sure everything that was written is stored
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,22 @@
+package renderer;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * interface for receiving the intermediate images of a progressive render
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+@FunctionalInterface
+public interface FrameListener {
+    /**
+     * receives the image after a pass of the render is done.
+     * called from the render thread, so the next pass starts only after it returns
+     *
+     * @param frame  a copy of the image
+     * @param pass   the index of the pass, starting from 0
+     * @param passes the total amount of passes
+     */
+    void frame(BufferedImage frame, int pass, int passes);
+}
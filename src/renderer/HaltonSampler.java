@@ -0,0 +1,61 @@
+package renderer;
+
+import java.util.SplittableRandom;
+
+/**
+ * sampler of the Halton sequence in bases 2 and 3.
+ * every set is shifted by a random offset (Cranley-Patterson rotation),
+ * so neighbouring pixels don't share the same pattern
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public class HaltonSampler implements Sampler {
+    /**
+     * the random generator of the offsets of every thread
+     */
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(SplittableRandom::new);
+
+    @Override
+    public void seed(long seed) {
+        random.set(new SplittableRandom(seed));
+    }
+
+    @Override
+    public void next(int n, double[] xs, double[] ys) {
+        SplittableRandom r = random.get();
+        double offsetX = r.nextDouble();
+        double offsetY = r.nextDouble();
+        for (int i = 0; i < n * n; i++) {
+            xs[i] = shift(radicalInverse(i + 1, 2), offsetX);
+            ys[i] = shift(radicalInverse(i + 1, 3), offsetY);
+        }
+    }
+
+    /**
+     * mirrors the digits of a number in a given base around the decimal point
+     *
+     * @param index the number
+     * @param base  the base
+     * @return the mirrored number, between 0 and 1
+     */
+    static double radicalInverse(int index, int base) {
+        double result = 0;
+        double fraction = 1d / base;
+        for (; index > 0; index /= base, fraction /= base)
+            result += (index % base) * fraction;
+        return result;
+    }
+
+    /**
+     * adds an offset to a number and wraps it into [0,1)
+     *
+     * @param value  the number
+     * @param offset the offset
+     * @return the shifted number
+     */
+    static double shift(double value, double offset) {
+        value += offset;
+        return value >= 1 ? value - 1 : value;
+    }
+}
@@ -0,0 +1,123 @@
+package renderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * interface for the file formats an image can be written in.
+ * the uncompressed formats are much faster to write than png, for intermediate images
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+@FunctionalInterface
+public interface ImageFormat {
+    /**
+     * png, compressed in parallel
+     */
+    ImageFormat PNG = PngEncoder::encode;
+    /**
+     * binary portable pixmap (P6), without compression
+     */
+    ImageFormat PPM = ImageFormat::writePpm;
+    /**
+     * 24 bit bitmap, without compression
+     */
+    ImageFormat BMP = ImageFormat::writeBmp;
+    /**
+     * the red, green and blue bytes of the pixels row by row, without a header
+     */
+    ImageFormat RAW = ImageFormat::writeRaw;
+
+    /**
+     * interface for reading the rows of the image
+     */
+    @FunctionalInterface
+    interface RowReader {
+        /**
+         * reads a row of the image as printed red, green and blue bytes
+         *
+         * @param y   the index of the row
+         * @param row the array for the 3 bytes of every pixel of the row
+         */
+        void read(int y, byte[] row);
+    }
+
+    /**
+     * writes an image in the format
+     *
+     * @param out    the output, which is not closed
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param rows   the reader of the rows
+     * @throws IOException if the image can't be written
+     */
+    void write(OutputStream out, int width, int height, RowReader rows) throws IOException;
+
+    /**
+     * writes an image as a binary portable pixmap
+     *
+     * @param out    the output
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param rows   the reader of the rows
+     * @throws IOException if the image can't be written
+     */
+    private static void writePpm(OutputStream out, int width, int height, RowReader rows) throws IOException {
+        out.write(("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+        writeRaw(out, width, height, rows);
+    }
+
+    /**
+     * writes the rows of an image from the top to the bottom
+     *
+     * @param out    the output
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param rows   the reader of the rows
+     * @throws IOException if the image can't be written
+     */
+    private static void writeRaw(OutputStream out, int width, int height, RowReader rows) throws IOException {
+        byte[] row = new byte[3 * width];
+        for (int y = 0; y < height; y++) {
+            rows.read(y, row);
+            out.write(row);
+        }
+        out.flush();
+    }
+
+    /**
+     * writes an image as a 24 bit bitmap
+     *
+     * @param out    the output
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param rows   the reader of the rows
+     * @throws IOException if the image can't be written
+     */
+    private static void writeBmp(OutputStream out, int width, int height, RowReader rows) throws IOException {
+        // the rows of a bitmap are padded to 4 bytes
+        int stride = (3 * width + 3) & ~3;
+        ByteBuffer header = ByteBuffer.allocate(54).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 'B').put((byte) 'M').putInt(54 + stride * height).putInt(0).putInt(54);
+        header.putInt(40).putInt(width).putInt(height).putShort((short) 1).putShort((short) 24)
+                .putInt(0).putInt(stride * height).putInt(2835).putInt(2835).putInt(0).putInt(0);
+        out.write(header.array());
+
+        byte[] row = new byte[3 * width], bgr = new byte[stride];
+        // the rows of a bitmap are from the bottom to the top, and the pixels are blue, green and red
+        for (int y = height - 1; y >= 0; y--) {
+            rows.read(y, row);
+            for (int i = 0; i < row.length; i += 3) {
+                bgr[i] = row[i + 2];
+                bgr[i + 1] = row[i + 1];
+                bgr[i + 2] = row[i];
+            }
+            out.write(bgr);
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,166 @@
+package renderer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * bounded queue of images that are written to files by a background thread,
+ * so the next image can be rendered while the previous ones are written.
+ * when the queue is full, adding an image waits until there is room in it,
+ * so the rendering never gets too far ahead of the disk.
+ * an image writer must not be changed until its image is written
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public class ImageQueue implements AutoCloseable {
+    /**
+     * how often a waiting producer checks that the writer thread is alive, and how often
+     * the writer thread checks that the queue was closed, in milliseconds
+     */
+    private static final long POLL_INTERVAL = 100;
+
+    /**
+     * a write waiting in the queue
+     *
+     * @param write  the write
+     * @param future the future that is completed when the write is done
+     */
+    private record Task(Runnable write, CompletableFuture<Void> future) {
+    }
+
+    /**
+     * the writes waiting for the writer thread
+     */
+    private final BlockingQueue<Task> queue;
+    /**
+     * the thread that writes the images
+     */
+    private final Thread writer;
+    /**
+     * the first write that failed, or null
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    /**
+     * the amount of producers that are adding a write, the writer thread doesn't stop before they are done
+     */
+    private final AtomicInteger producers = new AtomicInteger();
+    /**
+     * true after the queue was closed
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * ctor that starts the writer thread
+     *
+     * @param capacity the maximum amount of images waiting to be written
+     */
+    public ImageQueue(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        queue = new ArrayBlockingQueue<>(capacity);
+        writer = new Thread(this::run, "image-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * adds an image to the queue, waiting while the queue is full
+     *
+     * @param imageWriter the image writer
+     * @return a future that is completed when the png is written
+     */
+    public CompletableFuture<Void> submit(ImageWriter imageWriter) {
+        if (imageWriter == null) throw new IllegalArgumentException("image writer must not be null");
+        return submit(imageWriter::writeToImage);
+    }
+
+    /**
+     * adds a write to the queue, waiting while the queue is full
+     *
+     * @param write the write
+     * @return a future that is completed when the write is done
+     */
+    CompletableFuture<Void> submit(Runnable write) {
+        producers.incrementAndGet();
+        Task task = new Task(write, new CompletableFuture<>());
+        try {
+            if (closed) throw new IllegalStateException("the image queue is closed");
+            while (!queue.offer(task, POLL_INTERVAL, TimeUnit.MILLISECONDS))
+                if (!writer.isAlive()) throw new IllegalStateException("the image writer thread is stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the image queue", e);
+        } finally {
+            producers.decrementAndGet();
+        }
+        // the writer thread may have stopped by an error before the task was added
+        if (!writer.isAlive() && queue.remove(task))
+            task.future().completeExceptionally(new IllegalStateException("the image queue is closed"));
+        return task.future();
+    }
+
+    /**
+     * the amount of images waiting to be written, not including the one being written
+     *
+     * @return the amount of images
+     */
+    public int getPending() {
+        return queue.size();
+    }
+
+    /**
+     * waits until all the images are written and stops the writer thread.
+     * producers that already wait for room still add their images
+     *
+     * @throws IllegalStateException if an image could not be written
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the images", e);
+        }
+        failPending();
+        Throwable first = failure.get();
+        if (first != null) throw new IllegalStateException("an image could not be written", first);
+    }
+
+    /**
+     * completes the writes that are left in the queue after the writer thread stopped
+     */
+    private void failPending() {
+        for (Task task = queue.poll(); task != null; task = queue.poll())
+            task.future().completeExceptionally(new IllegalStateException("the image writer thread is stopped"));
+    }
+
+    /**
+     * the loop of the writer thread, until the queue is closed and empty.
+     * a failed write, even by an error, fails only its own future
+     */
+    private void run() {
+        try {
+            while (!closed || !queue.isEmpty() || producers.get() > 0) {
+                Task task = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (task == null) continue;
+                try {
+                    task.write().run();
+                    task.future().complete(null);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    task.future().completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            failPending();
+        }
+    }
+}
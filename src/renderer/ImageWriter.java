@@ -4,8 +4,18 @@ import primitives.Color;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
+import java.awt.image.DataBufferInt;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BiFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -19,10 +29,15 @@ import java.util.logging.Logger;
  */
 public class ImageWriter {
     /**
-     * Directory path for the image file generation - relative to the user
+     * Default directory path for the image file generation - relative to the user
      * directory
      */
     private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
+    /**
+     * the formats an image can be written in, by their file extensions
+     */
+    private static final Map<String, ImageFormat> FORMATS = new ConcurrentHashMap<>(Map.of(
+            "png", ImageFormat.PNG, "ppm", ImageFormat.PPM, "bmp", ImageFormat.BMP, "raw", ImageFormat.RAW));
     /**
      * Horizontal resolution of the image - number of pixels in row
      */
@@ -32,11 +47,45 @@ public class ImageWriter {
      */
     private int nY;
     /**
-     * Image generation buffer (the matrix of the pixels)
+     * Image generation buffer (the matrix of the pixels), with the red, green and blue
+     * components of every pixel as floats, without limiting them to 255.
+     * the buffer is tone mapped to an image in one pass only when it is written
+     */
+    private final FrameBuffer pixels;
+    /**
+     * the tone mapper applied when the image is written
      */
-    private BufferedImage image;
+    private ToneMapper toneMapper = ToneMapper.CLAMP;
     /**
-     * image file name, not including the file extension '.png'
+     * flag indicating whether the png is encoded while the image is rendered
+     */
+    private boolean streaming = false;
+    /**
+     * the encoder of the png while the image is rendered, or null if it didn't start
+     */
+    private volatile PngEncoder stream = null;
+    /**
+     * the output of the png while the image is rendered
+     */
+    private OutputStream streamOut;
+    /**
+     * the amount of pixels that are not done yet in every band of the png
+     */
+    private AtomicIntegerArray bandPixels;
+    /**
+     * the directory the image is written to
+     */
+    private File directory = new File(FOLDER_PATH);
+    /**
+     * the format the image is written in
+     */
+    private ImageFormat format = ImageFormat.PNG;
+    /**
+     * the file extension of the format
+     */
+    private String extension = "png";
+    /**
+     * image file name, not including the file extension
      */
     private String imageName;
     /**
@@ -58,7 +107,192 @@ public class ImageWriter {
         this.nX = nX;
         this.nY = nY;
 
-        image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        pixels = new ArrayFrameBuffer(nX, nY);
+    }
+
+    /**
+     * Image Writer constructor with a given frame buffer
+     *
+     * @param imageName the name of png file
+     * @param nX        amount of pixels by Width
+     * @param nY        amount of pixels by height
+     * @param pixels    the frame buffer
+     */
+    ImageWriter(String imageName, int nX, int nY, FrameBuffer pixels) {
+        this.imageName = imageName;
+        this.nX = nX;
+        this.nY = nY;
+        this.pixels = pixels;
+    }
+
+    /**
+     * creates an image writer that keeps the pixels in a memory mapped pfm file
+     * in the directory of the project instead of the heap, for images that are too big for the heap.
+     * the pixels are written to the file as they are rendered, so the file has the rendered part
+     * of the image even if the program crashes, and {@link #writeToPfm()} only flushes it
+     *
+     * @param imageName the name of the image, the file is the name with the extension '.pfm'
+     * @param nX        amount of pixels by Width
+     * @param nY        amount of pixels by height
+     * @return the image writer
+     */
+    public static ImageWriter mapped(String imageName, int nX, int nY) {
+        return mapped(FOLDER_PATH, imageName, nX, nY);
+    }
+
+    /**
+     * creates an image writer that keeps the pixels in a memory mapped pfm file in a given directory,
+     * which is also the directory the image is written to
+     *
+     * @param directory the path of the directory, which is created if it is missing
+     * @param imageName the name of the image, the file is the name with the extension '.pfm'
+     * @param nX        amount of pixels by Width
+     * @param nY        amount of pixels by height
+     * @return the image writer
+     */
+    public static ImageWriter mapped(String directory, String imageName, int nX, int nY) {
+        File file = fileIn(directory, imageName, ".pfm");
+        try {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+            return new ImageWriter(imageName, nX, nY, new MappedFrameBuffer(file, nX, nY))
+                    .setDirectory(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error writing " + file, e);
+        }
+    }
+
+    /**
+     * reads an image that was saved by {@link #writeToPfm()}, so it can be tone mapped again
+     * without rendering it again
+     *
+     * @param imageName the name of the pfm file, not including the file extension '.pfm'
+     * @return the image writer with the pixels of the file
+     */
+    public static ImageWriter readPfm(String imageName) {
+        return readPfm(FOLDER_PATH, imageName);
+    }
+
+    /**
+     * reads an image that was saved by {@link #writeToPfm()} in a given directory,
+     * which is also the directory the image is written to
+     *
+     * @param directory the path of the directory
+     * @param imageName the name of the pfm file, not including the file extension '.pfm'
+     * @return the image writer with the pixels of the file
+     */
+    public static ImageWriter readPfm(String directory, String imageName) {
+        return readPfm(fileIn(directory, imageName, ".pfm"), imageName).setDirectory(directory);
+    }
+
+    /**
+     * reads a png image from the directory of the project, so parts of it can be rendered again
+     *
+     * @param imageName the name of the png file, not including the file extension '.png'
+     * @return the image writer with the pixels of the file
+     */
+    public static ImageWriter readPng(String imageName) {
+        return readPng(FOLDER_PATH, imageName);
+    }
+
+    /**
+     * reads a png image from a given directory, which is also the directory the image is written to
+     *
+     * @param directory the path of the directory
+     * @param imageName the name of the png file, not including the file extension '.png'
+     * @return the image writer with the pixels of the file
+     */
+    public static ImageWriter readPng(String directory, String imageName) {
+        File file = fileIn(directory, imageName, ".png");
+        BufferedImage image;
+        try {
+            image = ImageIO.read(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - may be missing file " + file, e);
+        }
+        if (image == null) throw new IllegalArgumentException("not a png file: " + file);
+        ImageWriter imageWriter = new ImageWriter(imageName, image.getWidth(), image.getHeight())
+                .setDirectory(directory);
+        for (int i = 0; i < imageWriter.nY; i++)
+            for (int j = 0; j < imageWriter.nX; j++) {
+                int rgb = image.getRGB(j, i);
+                long index = 3 * ((long) i * imageWriter.nX + j);
+                imageWriter.pixels.set(index, rgb >> 16 & 0xFF);
+                imageWriter.pixels.set(index + 1, rgb >> 8 & 0xFF);
+                imageWriter.pixels.set(index + 2, rgb & 0xFF);
+            }
+        return imageWriter;
+    }
+
+    /**
+     * the file of an image in a directory, resolved the same way as by {@link #setDirectory(String)}
+     *
+     * @param directory the path of the directory
+     * @param imageName the name of the image
+     * @param extension the extension, including the dot
+     * @return the file
+     */
+    private static File fileIn(String directory, String imageName, String extension) {
+        if (directory == null)
+            throw new IllegalArgumentException("directory must not be null");
+        return new File(directory, imageName + extension);
+    }
+
+    /**
+     * reads an image from a pfm file
+     *
+     * @param file      the pfm file
+     * @param imageName the name of the image
+     * @return the image writer with the pixels of the file
+     */
+    private static ImageWriter readPfm(File file, String imageName) {
+        return readPfm(file, (nX, nY) -> new ImageWriter(imageName, nX, nY));
+    }
+
+    /**
+     * reads the pixels of a pfm file row by row into an image writer of its resolution
+     *
+     * @param file   the pfm file
+     * @param target gives the image writer for the width and height of the file, or null to stop reading
+     * @return the image writer with the pixels of the file, or null if there is none for its resolution
+     */
+    private static ImageWriter readPfm(File file, BiFunction<Integer, Integer, ImageWriter> target) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (!"PF".equals(readToken(in)))
+                throw new IllegalArgumentException("not a color pfm file: " + file);
+            int nX = Integer.parseInt(readToken(in));
+            int nY = Integer.parseInt(readToken(in));
+            double scale = Double.parseDouble(readToken(in));
+            ImageWriter imageWriter = target.apply(nX, nY);
+            if (imageWriter == null) return null;
+            ByteBuffer row = ByteBuffer.allocate(12 * nX)
+                    .order(scale < 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            // the rows of a pfm file are from the bottom to the top
+            for (int i = nY - 1; i >= 0; i--) {
+                in.readFully(row.array());
+                row.rewind();
+                for (long j = 3L * i * nX; j < 3L * (i + 1) * nX; j++)
+                    imageWriter.pixels.set(j, row.getFloat() * 255);
+            }
+            return imageWriter;
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - may be missing file " + file, e);
+        }
+    }
+
+    /**
+     * reads a token of the header of a pfm file, and the single whitespace after it
+     *
+     * @param in the file
+     * @return the token
+     * @throws IOException if the file can't be read
+     */
+    private static String readToken(DataInputStream in) throws IOException {
+        StringBuilder token = new StringBuilder();
+        for (int c = in.read(); !Character.isWhitespace(c); c = in.read()) {
+            if (c == -1) throw new EOFException("truncated pfm header");
+            token.append((char) c);
+        }
+        return token.toString();
     }
 
     // ***************** Getters/Setters ********************** //
@@ -81,23 +315,309 @@ public class ImageWriter {
         return nX;
     }
 
+    /**
+     * set function for the tone mapper applied when the image is written
+     *
+     * @param toneMapper the tone mapper
+     * @return the image writer
+     */
+    public ImageWriter setToneMapper(ToneMapper toneMapper) {
+        if (toneMapper == null)
+            throw new IllegalArgumentException("tone mapper must not be null");
+        this.toneMapper = toneMapper;
+        return this;
+    }
+
+    /**
+     * set function for the directory the image is written to, which is created if it is missing
+     *
+     * @param directory the path of the directory
+     * @return the image writer
+     */
+    public ImageWriter setDirectory(String directory) {
+        if (directory == null)
+            throw new IllegalArgumentException("directory must not be null");
+        this.directory = new File(directory);
+        return this;
+    }
+
+    /**
+     * set function for the format the image is written in
+     *
+     * @param extension the file extension of a registered format, like "png", "ppm", "bmp" or "raw"
+     * @return the image writer
+     */
+    public ImageWriter setFormat(String extension) {
+        ImageFormat format = extension == null ? null : FORMATS.get(extension);
+        if (format == null)
+            throw new IllegalArgumentException("unknown image format " + extension);
+        this.format = format;
+        this.extension = extension;
+        return this;
+    }
+
+    /**
+     * registers a format, so it can be chosen by its file extension
+     *
+     * @param extension the file extension of the format
+     * @param format    the format
+     */
+    public static void registerFormat(String extension, ImageFormat format) {
+        if (extension == null || extension.isEmpty() || format == null)
+            throw new IllegalArgumentException("format must have an extension");
+        FORMATS.put(extension, format);
+    }
+
+    /**
+     * removes a registered format, image writers that already use it keep using it
+     *
+     * @param extension the file extension of the format
+     */
+    public static void unregisterFormat(String extension) {
+        if (extension == null)
+            throw new IllegalArgumentException("format must have an extension");
+        FORMATS.remove(extension);
+    }
+
+    /**
+     * set function for streaming - encoding the png while the image is rendered.
+     * every band of rows is compressed in the background as soon as all its tiles are done,
+     * and {@link #writeToImage()} only finishes the last bands.
+     * pixels written after their tile is done (like a grid) are not in the png,
+     * and the tone mapper must be set before the render. other formats are not streamed
+     *
+     * @param streaming true for streaming, false for encoding the whole png when it is written
+     * @return the image writer
+     */
+    public ImageWriter setStreaming(boolean streaming) {
+        this.streaming = streaming;
+        return this;
+    }
+
     // ***************** Operations ******************** //
 
     /**
-     * Function writeToImage produces unoptimized png file of the image according
+     * Function writeToImage produces the file of the image according
      * to
-     * pixel color matrix in the directory of the project
+     * pixel color matrix in the directory of the image, in the format of the image.
+     * the bands of rows of a png are compressed in parallel
      */
     public void writeToImage() {
+        File file = imageFile();
+        try {
+            PngEncoder encoder = stream;
+            if (encoder != null) {
+                stream = null;
+                try {
+                    encoder.finish();
+                } finally {
+                    streamOut.close();
+                }
+                return;
+            }
+            Files.createDirectories(directory.toPath());
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                format.write(out, nX, nY, this::readRow);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error writing " + file, e);
+        }
+    }
+
+    /**
+     * writes the image in the format of the image to a stream, which is not closed
+     *
+     * @param out the stream
+     */
+    public void writeToImage(OutputStream out) {
+        if (out == null)
+            throw new IllegalArgumentException("output must not be null");
         try {
-            File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-            ImageIO.write(image, "png", file);
+            format.write(out, nX, nY, this::readRow);
+        } catch (IOException | UncheckedIOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error writing " + imageName, e);
+        }
+    }
+
+    /**
+     * Function writeToPfm saves the pixel color matrix as it is, without tone mapping,
+     * in a pfm file (portable float map) in the directory of the image.
+     * 1 in the file is the printed white - 255 in the matrix
+     */
+    public void writeToPfm() {
+        if (pixels instanceof MappedFrameBuffer) {
+            pixels.flush();
+            return;
+        }
+        savePixels(new File(directory, imageName + ".pfm"));
+    }
+
+    /**
+     * saves the pixel color matrix in a pfm file, replacing the file only after it is fully written,
+     * so a crash while saving leaves the former file
+     *
+     * @param file the pfm file
+     */
+    void savePixels(File file) {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error writing " + file, e);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+            // negative scale marks little endian floats
+            out.write(("PF\n" + nX + " " + nY + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII));
+            ByteBuffer row = ByteBuffer.allocate(12 * nX).order(ByteOrder.LITTLE_ENDIAN);
+            // the rows of a pfm file are from the bottom to the top
+            for (int i = nY - 1; i >= 0; i--) {
+                row.clear();
+                for (long j = 3L * i * nX; j < 3L * (i + 1) * nX; j++)
+                    row.putFloat(pixels.get(j) / 255);
+                out.write(row.array());
+            }
         } catch (IOException e) {
             logger.log(Level.SEVERE, "I/O error", e);
-            throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+            throw new IllegalStateException("I/O error writing " + file, e);
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error writing " + file, e);
         }
     }
 
+    /**
+     * loads the pixel color matrix from a pfm file saved by {@link #savePixels(File)}
+     *
+     * @param file the pfm file
+     * @return true if the pixels were loaded, false if the file has another resolution
+     */
+    boolean loadPixels(File file) {
+        // the rows are read straight into the pixels, which may be memory mapped
+        return readPfm(file, (width, height) -> width == nX && height == nY ? this : null) != null;
+    }
+
+    /**
+     * the file of the image with a given extension, in the directory of the image
+     *
+     * @param extension the extension, including the dot
+     * @return the file
+     */
+    File fileOf(String extension) {
+        return new File(directory, imageName + extension);
+    }
+
+    /**
+     * creates an image of the current pixel color matrix, mapped by the tone mapper
+     *
+     * @return the image
+     */
+    public BufferedImage toImage() {
+        BufferedImage copy = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) copy.getRaster().getDataBuffer()).getData();
+        long p = 0;
+        for (int i = 0; i < data.length; i++, p += 3)
+            data[i] = toByte(pixels.get(p)) << 16 | toByte(pixels.get(p + 1)) << 8 | toByte(pixels.get(p + 2));
+        return copy;
+    }
+
+    /**
+     * reads a row of the image, mapped by the tone mapper
+     *
+     * @param y   the index of the row
+     * @param row the array for the printed red, green and blue bytes of every pixel of the row
+     */
+    private void readRow(int y, byte[] row) {
+        long p = 3L * y * nX;
+        for (int i = 0; i < row.length; i++, p++)
+            row[i] = (byte) toByte(pixels.get(p));
+    }
+
+    /**
+     * the file of the image
+     *
+     * @return the file
+     */
+    private File imageFile() {
+        return new File(directory, imageName + '.' + extension);
+    }
+
+    /**
+     * marks a tile of the image as done. when streaming, a band of the png
+     * starts to be encoded as soon as all its pixels are done
+     *
+     * @param x      the column of the top left pixel of the tile
+     * @param y      the row of the top left pixel of the tile
+     * @param width  the width of the tile
+     * @param height the height of the tile
+     */
+    void tileDone(int x, int y, int width, int height) {
+        if (!streaming || format != ImageFormat.PNG) return;
+        PngEncoder encoder = stream;
+        if (encoder == null) encoder = startStream();
+        for (int i = y; i < y + height; i++) {
+            int band = i / PngEncoder.BAND_ROWS;
+            if (bandPixels.addAndGet(band, -width) == 0) encoder.bandReady(band);
+        }
+    }
+
+    /**
+     * opens the png file and starts the encoder for streaming
+     *
+     * @return the encoder
+     */
+    private synchronized PngEncoder startStream() {
+        if (stream != null) return stream;
+        int bands = (nY + PngEncoder.BAND_ROWS - 1) / PngEncoder.BAND_ROWS;
+        bandPixels = new AtomicIntegerArray(bands);
+        for (int band = 0; band < bands; band++)
+            bandPixels.set(band, Math.min(PngEncoder.BAND_ROWS, nY - band * PngEncoder.BAND_ROWS) * nX);
+        File file = imageFile();
+        try {
+            Files.createDirectories(directory.toPath());
+            streamOut = new BufferedOutputStream(new FileOutputStream(file));
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error writing " + file, e);
+        }
+        PngEncoder encoder = new PngEncoder(streamOut, nX, nY, this::readRow);
+        stream = encoder;
+        return encoder;
+    }
+
+    /**
+     * writes the pixels of a rectangle of the image that was rendered somewhere else,
+     * and marks it as done
+     *
+     * @param region     the rectangle
+     * @param components the red, green and blue components of the pixels of the rectangle, row by row
+     */
+    void writeRegion(Tile region, float[] components) {
+        if (components.length != 3 * region.size())
+            throw new IllegalArgumentException("wrong amount of components for " + region);
+        int p = 0;
+        for (int i = region.y(); i < region.y() + region.height(); i++) {
+            long start = 3 * ((long) i * nX + region.x());
+            for (long j = start; j < start + 3L * region.width(); j++)
+                pixels.set(j, components[p++]);
+        }
+        tileDone(region.x(), region.y(), region.width(), region.height());
+    }
+
+    /**
+     * maps a component of a pixel by the tone mapper and limits it to 255
+     *
+     * @param value the component
+     * @return the printed component, between 0 and 255
+     */
+    private int toByte(float value) {
+        int mapped = (int) toneMapper.map(value);
+        return mapped > 255 ? 255 : mapped;
+    }
+
     /**
      * The function writePixel writes a color of a specific pixel into pixel color
      * matrix
@@ -107,7 +627,10 @@ public class ImageWriter {
      * @param color  final color of the pixel
      */
     public void writePixel(int xIndex, int yIndex, Color color) {
-        image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        long index = 3 * ((long) Objects.checkIndex(yIndex, nY) * nX + Objects.checkIndex(xIndex, nX));
+        pixels.set(index, (float) color.getRed());
+        pixels.set(index + 1, (float) color.getGreen());
+        pixels.set(index + 2, (float) color.getBlue());
     }
 }
 
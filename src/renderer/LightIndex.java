@@ -0,0 +1,167 @@
+package renderer;
+
+import lighting.LightSource;
+import lighting.PointLight;
+import primitives.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * spatial index of the lights of a scene, for finding the lights that may affect a point.
+ * lights with a limited influence are put in every cell of a regular grid that their
+ * influence sphere touches, and lights without a limit are in all the cells,
+ * so a shading point goes only over the lights of its own cell
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class LightIndex {
+    /**
+     * The maximum amount of cells in every axis
+     */
+    private static final int MAX_CELLS = 32;
+
+    /**
+     * the lights that affect points out of the grid
+     */
+    private final LightSource[] unbounded;
+    /**
+     * the lights of every cell, in the order of the scene, or null if the index has no grid
+     */
+    private final LightSource[][] cells;
+    /**
+     * the minimum corner of the grid
+     */
+    private final double[] min = new double[3];
+    /**
+     * the size of a cell in every axis
+     */
+    private final double[] cellSize = new double[3];
+    /**
+     * the amount of cells in every axis
+     */
+    private final int[] size = new int[3];
+
+    /**
+     * ctor that builds the index from the lights of a scene
+     *
+     * @param lights the lights of the scene
+     */
+    LightIndex(List<LightSource> lights) {
+        List<LightSource> unboundedLights = new ArrayList<>();
+        double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        min[0] = min[1] = min[2] = Double.POSITIVE_INFINITY;
+        double radiusSum = 0;
+        int bounded = 0;
+        for (LightSource light : lights) {
+            if (!isBounded(light)) {
+                unboundedLights.add(light);
+                continue;
+            }
+            Point center = ((PointLight) light).getPosition();
+            double radius = ((PointLight) light).getInfluenceRadius();
+            min[0] = Math.min(min[0], center.getX() - radius);
+            min[1] = Math.min(min[1], center.getY() - radius);
+            min[2] = Math.min(min[2], center.getZ() - radius);
+            max[0] = Math.max(max[0], center.getX() + radius);
+            max[1] = Math.max(max[1], center.getY() + radius);
+            max[2] = Math.max(max[2], center.getZ() + radius);
+            radiusSum += radius;
+            bounded++;
+        }
+        unbounded = unboundedLights.toArray(new LightSource[0]);
+        if (bounded == 0) {
+            cells = null;
+            return;
+        }
+
+        // cells about as big as the average influence sphere
+        double cell = 2 * radiusSum / bounded;
+        for (int axis = 0; axis < 3; axis++) {
+            double extent = max[axis] - min[axis];
+            size[axis] = cell == 0 ? 1 : Math.clamp((long) Math.ceil(extent / cell), 1, MAX_CELLS);
+            cellSize[axis] = extent == 0 ? 1 : extent / size[axis];
+        }
+
+        List<List<LightSource>> lists = new ArrayList<>();
+        for (int i = 0; i < size[0] * size[1] * size[2]; i++) lists.add(new ArrayList<>());
+        for (LightSource light : lights) {
+            if (!isBounded(light)) {
+                for (List<LightSource> list : lists) list.add(light);
+                continue;
+            }
+            Point center = ((PointLight) light).getPosition();
+            double radius = ((PointLight) light).getInfluenceRadius();
+            int toX = cellOf(center.getX() + radius, 0);
+            int toY = cellOf(center.getY() + radius, 1);
+            int toZ = cellOf(center.getZ() + radius, 2);
+            for (int x = cellOf(center.getX() - radius, 0); x <= toX; x++)
+                for (int y = cellOf(center.getY() - radius, 1); y <= toY; y++)
+                    for (int z = cellOf(center.getZ() - radius, 2); z <= toZ; z++)
+                        lists.get(index(x, y, z)).add(light);
+        }
+        cells = new LightSource[lists.size()][];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = lists.get(i).toArray(new LightSource[0]);
+    }
+
+    /**
+     * finds the lights that may affect a given point
+     *
+     * @param p the point
+     * @return the lights, in the order of the scene
+     */
+    LightSource[] lightsAt(Point p) {
+        if (cells == null) return unbounded;
+        double x = p.getX(), y = p.getY(), z = p.getZ();
+        if (!inGrid(x, 0) || !inGrid(y, 1) || !inGrid(z, 2)) return unbounded;
+        return cells[index(cellOf(x, 0), cellOf(y, 1), cellOf(z, 2))];
+    }
+
+    /**
+     * checking if a coordinate is inside the grid in a given axis
+     *
+     * @param coordinate the coordinate
+     * @param axis       the axis
+     * @return true if it is, false if not
+     */
+    private boolean inGrid(double coordinate, int axis) {
+        double offset = coordinate - min[axis];
+        return offset >= 0 && offset <= cellSize[axis] * size[axis];
+    }
+
+    /**
+     * checking if the influence of a light is limited to a sphere
+     *
+     * @param light the light
+     * @return true if it is, false if not
+     */
+    private static boolean isBounded(LightSource light) {
+        return light instanceof PointLight pointLight
+                && pointLight.getInfluenceRadius() != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * finds the cell of a coordinate in a given axis
+     *
+     * @param coordinate the coordinate
+     * @param axis       the axis
+     * @return the index of the cell, limited to the grid
+     */
+    private int cellOf(double coordinate, int axis) {
+        return Math.clamp((long) Math.floor((coordinate - min[axis]) / cellSize[axis]), 0, size[axis] - 1);
+    }
+
+    /**
+     * calculates the index of a cell in the array of the cells
+     *
+     * @param x the index of the cell in the x axis
+     * @param y the index of the cell in the y axis
+     * @param z the index of the cell in the z axis
+     * @return the index in the array
+     */
+    private int index(int x, int y, int z) {
+        return (x * size[1] + y) * size[2] + z;
+    }
+}
@@ -0,0 +1,108 @@
+package renderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * frame buffer that keeps the pixels in a memory mapped pfm file instead of the heap,
+ * so the size of the image is limited only by the disk, and the pixels that were written
+ * stay in the file even if the program crashes.
+ * a single mapping is limited to 2GB, so the file is mapped in bands of whole rows
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class MappedFrameBuffer implements FrameBuffer {
+    /**
+     * the amount of columns
+     */
+    private final int nX;
+    /**
+     * the amount of rows
+     */
+    private final int nY;
+    /**
+     * the amount of rows in every band
+     */
+    private final int bandRows;
+    /**
+     * the mapped bands of the file, from the bottom row of the image, as in pfm files
+     */
+    private final MappedByteBuffer[] bands;
+
+    /**
+     * ctor that creates the file and maps it
+     *
+     * @param file the pfm file, replaced if it exists
+     * @param nX   the amount of columns
+     * @param nY   the amount of rows
+     * @throws IOException if the file can't be created
+     */
+    MappedFrameBuffer(File file, int nX, int nY) throws IOException {
+        this.nX = nX;
+        this.nY = nY;
+        long rowBytes = 12L * nX;
+        bandRows = (int) Math.min(nY, Integer.MAX_VALUE / rowBytes);
+        if (bandRows == 0)
+            throw new IllegalArgumentException("image rows are too wide");
+
+        // negative scale marks little endian floats
+        byte[] header = ("PF\n" + nX + " " + nY + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            raf.write(header);
+            raf.setLength(header.length + rowBytes * nY);
+            bands = new MappedByteBuffer[(nY + bandRows - 1) / bandRows];
+            for (int band = 0; band < bands.length; band++) {
+                long start = header.length + band * bandRows * rowBytes;
+                long size = Math.min(bandRows, nY - (long) band * bandRows) * rowBytes;
+                bands[band] = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+                bands[band].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+    }
+
+    /**
+     * finds the band of a component
+     *
+     * @param index the index of the component
+     * @return the index of the band
+     */
+    private int bandOf(long index) {
+        long row = nY - 1 - index / (3L * nX);
+        return (int) (row / bandRows);
+    }
+
+    /**
+     * finds the byte offset of a component in its band
+     *
+     * @param index the index of the component
+     * @return the offset
+     */
+    private int offsetOf(long index) {
+        long row = nY - 1 - index / (3L * nX);
+        return (int) (((row % bandRows) * 3L * nX + index % (3L * nX)) * 4);
+    }
+
+    @Override
+    public float get(long index) {
+        // 1 in the file is the printed white
+        return bands[bandOf(index)].getFloat(offsetOf(index)) * 255;
+    }
+
+    @Override
+    public void set(long index, float value) {
+        bands[bandOf(index)].putFloat(offsetOf(index), value / 255);
+    }
+
+    @Override
+    public void flush() {
+        for (MappedByteBuffer band : bands)
+            band.force();
+    }
+}
@@ -0,0 +1,365 @@
+package renderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * png encoder that compresses bands of rows in parallel and streams them to the output in order.
+ * every band is filtered and deflated on its own, and ends with a sync flush,
+ * so the compressed bands are simply concatenated into a single zlib stream,
+ * and the adler32 checksums of the bands are combined for the end of the stream.
+ * a band can be encoded as soon as all its rows and the row above it are final, since the filter of
+ * its first row predicts from the row above, while the rest of the image is rendered.
+ * the bands are encoded by a small pool of their own, so they don't take the threads of the common pool
+ * that a render may run on
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class PngEncoder {
+    /**
+     * The amount of rows in every band
+     */
+    static final int BAND_ROWS = 64;
+    /**
+     * The signature at the start of every png file
+     */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    /**
+     * The header of a zlib stream with the default compression and no dictionary
+     */
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9C};
+    /**
+     * The modulus of the adler32 checksum
+     */
+    private static final long ADLER_BASE = 65521;
+    /**
+     * The threads that encode the bands, which stop when there is nothing to encode
+     */
+    static final ThreadPoolExecutor ENCODERS = new ThreadPoolExecutor(
+            Math.clamp(Runtime.getRuntime().availableProcessors() / 2, 1, 4),
+            Math.clamp(Runtime.getRuntime().availableProcessors() / 2, 1, 4),
+            30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            Thread.ofPlatform().name("png-encoder-", 0).daemon().factory());
+
+    static {
+        ENCODERS.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * a compressed band
+     *
+     * @param data   the deflated rows
+     * @param adler  the adler32 checksum of the filtered rows
+     * @param length the length of the filtered rows
+     */
+    private record Band(byte[] data, long adler, int length) {
+    }
+
+    /**
+     * the output of the png
+     */
+    private final OutputStream out;
+    /**
+     * the width of the image
+     */
+    private final int width;
+    /**
+     * the height of the image
+     */
+    private final int height;
+    /**
+     * the reader of the rows
+     */
+    private final ImageFormat.RowReader rows;
+    /**
+     * the compressed bands, completed when they are encoded
+     */
+    private final CompletableFuture<Band>[] bands;
+    /**
+     * the writing of all the bands, in order
+     */
+    private final CompletableFuture<Void> written;
+    /**
+     * which bands were started
+     */
+    private final boolean[] started;
+    /**
+     * which bands have all their rows final
+     */
+    private final boolean[] rowsFinal;
+    /**
+     * the adler32 checksum of the bands written so far
+     */
+    private long adler = 1;
+
+    /**
+     * ctor that writes the header of the png, and prepares the writing of the bands in order
+     *
+     * @param out    the output of the png
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param rows   the reader of the rows
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    PngEncoder(OutputStream out, int width, int height, ImageFormat.RowReader rows) {
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.rows = rows;
+
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8; // bits per component
+        header[9] = 2; // red, green and blue
+        try {
+            out.write(SIGNATURE);
+            writeChunk("IHDR", header);
+            writeChunk("IDAT", ZLIB_HEADER);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        bands = new CompletableFuture[(height + BAND_ROWS - 1) / BAND_ROWS];
+        started = new boolean[bands.length];
+        rowsFinal = new boolean[bands.length];
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < bands.length; i++) {
+            bands[i] = new CompletableFuture<>();
+            chain = chain.thenAcceptBoth(bands[i], (ignore, band) -> writeBand(band));
+        }
+        written = chain;
+    }
+
+    /**
+     * encodes an image and writes it
+     *
+     * @param out    the output of the png
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param rows   the reader of the rows
+     * @throws IOException if the png can't be written
+     */
+    static void encode(OutputStream out, int width, int height, ImageFormat.RowReader rows) throws IOException {
+        new PngEncoder(out, width, height, rows).finish();
+    }
+
+    /**
+     * marks all the rows of a band as final, and starts encoding the bands
+     * whose rows and the row above them are final
+     *
+     * @param band the index of the band
+     */
+    synchronized void bandReady(int band) {
+        rowsFinal[band] = true;
+        if (band == 0 || rowsFinal[band - 1]) start(band);
+        if (band + 1 < bands.length && rowsFinal[band + 1]) start(band + 1);
+    }
+
+    /**
+     * starts encoding a band in the background
+     *
+     * @param band the index of the band
+     */
+    private synchronized void start(int band) {
+        if (started[band]) return;
+        started[band] = true;
+        bands[band].completeAsync(() -> encodeBand(band), ENCODERS);
+    }
+
+    /**
+     * encodes the bands that were not started yet, waits until all the bands are written,
+     * and writes the end of the png
+     *
+     * @throws IOException if the png can't be written
+     */
+    void finish() throws IOException {
+        for (int i = 0; i < bands.length; i++) start(i);
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        }
+        byte[] checksum = new byte[4];
+        writeInt(checksum, 0, (int) adler);
+        writeChunk("IDAT", checksum);
+        writeChunk("IEND", new byte[0]);
+        out.flush();
+    }
+
+    /**
+     * filters and deflates the rows of a band
+     *
+     * @param band the index of the band
+     * @return the compressed band
+     */
+    private Band encodeBand(int band) {
+        int from = band * BAND_ROWS;
+        int to = Math.min(height, from + BAND_ROWS);
+        int stride = 3 * width;
+        byte[] previous = new byte[stride], current = new byte[stride];
+        if (from > 0) rows.read(from - 1, previous);
+        byte[] filtered = new byte[(to - from) * (stride + 1)];
+        byte[][] scratch = {new byte[stride], new byte[stride]};
+        for (int y = from, offset = 0; y < to; y++, offset += stride + 1) {
+            rows.read(y, current);
+            filterRow(current, previous, filtered, offset, scratch);
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        Adler32 checksum = new Adler32();
+        checksum.update(filtered);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(filtered);
+        ByteArrayOutputStream data = new ByteArrayOutputStream(filtered.length / 4);
+        byte[] buffer = new byte[8192];
+        // the last band ends the stream, the others end with a sync flush on a byte boundary
+        boolean last = to == height;
+        if (last) deflater.finish();
+        while (true) {
+            int count = deflater.deflate(buffer, 0, buffer.length, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+            data.write(buffer, 0, count);
+            if (last ? deflater.finished() : count < buffer.length) break;
+        }
+        deflater.end();
+        return new Band(data.toByteArray(), checksum.getValue(), filtered.length);
+    }
+
+    /**
+     * filters a row by the filter that gives the smallest sum of bytes, which usually compresses best
+     *
+     * @param row      the row
+     * @param previous the row above it, or zeros for the first row
+     * @param out      the filtered rows
+     * @param offset   the offset of the filtered row, starting with the type of the filter
+     * @param scratch  two arrays of the length of the row for the filters, reused by all the rows of a band
+     */
+    private static void filterRow(byte[] row, byte[] previous, byte[] out, int offset, byte[][] scratch) {
+        byte[] best = scratch[0], filtered = scratch[1];
+        long bestSum = Long.MAX_VALUE;
+        int bestType = 0;
+        for (int type = 0; type < 5; type++) {
+            long sum = 0;
+            for (int i = 0; i < row.length; i++) {
+                int a = i < 3 ? 0 : row[i - 3] & 0xFF;
+                int b = previous[i] & 0xFF;
+                int c = i < 3 ? 0 : previous[i - 3] & 0xFF;
+                int predictor = switch (type) {
+                    case 0 -> 0;
+                    case 1 -> a;
+                    case 2 -> b;
+                    case 3 -> (a + b) >> 1;
+                    default -> paeth(a, b, c);
+                };
+                filtered[i] = (byte) (row[i] - predictor);
+                sum += Math.abs(filtered[i]);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                bestType = type;
+                byte[] swap = best;
+                best = filtered;
+                filtered = swap;
+            }
+        }
+        out[offset] = (byte) bestType;
+        System.arraycopy(best, 0, out, offset + 1, row.length);
+    }
+
+    /**
+     * the paeth predictor of png - the neighbour closest to a + b - c
+     *
+     * @param a the left byte
+     * @param b the upper byte
+     * @param c the upper left byte
+     * @return the predicted byte
+     */
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+        return pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+    }
+
+    /**
+     * writes a compressed band, called for the bands in order
+     *
+     * @param band the band
+     */
+    private void writeBand(Band band) {
+        adler = combineAdler(adler, band.adler(), band.length());
+        try {
+            writeChunk("IDAT", band.data());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * combines the adler32 checksums of two arrays into the checksum of their concatenation
+     *
+     * @param adler1  the checksum of the first array
+     * @param adler2  the checksum of the second array
+     * @param length2 the length of the second array
+     * @return the combined checksum
+     */
+    static long combineAdler(long adler1, long adler2, long length2) {
+        long remainder = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) + ADLER_BASE - remainder;
+        sum1 %= ADLER_BASE;
+        sum2 %= ADLER_BASE;
+        return sum1 | sum2 << 16;
+    }
+
+    /**
+     * writes a chunk of the png - its length, type, data and crc
+     *
+     * @param type the type of the chunk
+     * @param data the data of the chunk
+     * @throws IOException if the chunk can't be written
+     */
+    private void writeChunk(String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] number = new byte[4];
+        writeInt(number, 0, data.length);
+        out.write(number);
+        out.write(typeBytes);
+        out.write(data);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        writeInt(number, 0, (int) crc.getValue());
+        out.write(number);
+    }
+
+    /**
+     * writes an int in big endian order
+     *
+     * @param array  the array
+     * @param offset the offset of the int
+     * @param value  the int
+     */
+    private static void writeInt(byte[] array, int offset, int value) {
+        array[offset] = (byte) (value >>> 24);
+        array[offset + 1] = (byte) (value >>> 16);
+        array[offset + 2] = (byte) (value >>> 8);
+        array[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,50 @@
+package renderer;
+
+import java.time.Duration;
+
+/**
+ * interface for receiving the progress of a render.
+ * the listener is called from a separate reporter thread at a fixed interval,
+ * and once more when the render is done
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * receives a snapshot of the progress of the render
+     *
+     * @param progress the progress
+     */
+    void progress(RenderProgress progress);
+
+    /**
+     * creates a listener that prints the progress to the console,
+     * only when it changed by at least the given percent since the last print, and 100% only once
+     *
+     * @param interval the minimal change in percent between two prints
+     * @return the listener
+     */
+    static ProgressListener console(double interval) {
+        return new ProgressListener() {
+            /**
+             * the last printed percent
+             */
+            private double lastPrinted = -interval;
+
+            @Override
+            public synchronized void progress(RenderProgress progress) {
+                double percent = progress.percent();
+                // a lower percent is a new render
+                if (percent < lastPrinted) lastPrinted = -interval;
+                if (percent >= 100 ? lastPrinted >= 100 : percent - lastPrinted < interval) return;
+                lastPrinted = percent;
+                Duration eta = progress.eta();
+                System.out.printf("%5.1f%% %,10.0f pixels/s %,12.0f rays/s ETA %s\r", percent,
+                        progress.pixelsPerSecond(), progress.raysPerSecond(),
+                        eta == null ? "-" : eta.toSeconds() + "s");
+            }
+        };
+    }
+}
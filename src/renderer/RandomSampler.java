@@ -0,0 +1,32 @@
+package renderer;
+
+import java.util.SplittableRandom;
+
+/**
+ * sampler that jitters a random point inside every cell of an n x n grid,
+ * using a separate random generator for every thread
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public class RandomSampler implements Sampler {
+    /**
+     * the random generator of every thread
+     */
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(SplittableRandom::new);
+
+    @Override
+    public void seed(long seed) {
+        random.set(new SplittableRandom(seed));
+    }
+
+    @Override
+    public void next(int n, double[] xs, double[] ys) {
+        SplittableRandom r = random.get();
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                xs[i * n + j] = (i + r.nextDouble()) / n;
+                ys[i * n + j] = (j + r.nextDouble()) / n;
+            }
+    }
+}
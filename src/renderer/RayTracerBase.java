@@ -40,6 +40,23 @@ public abstract class RayTracerBase {
         this.blackBoard = blackBoard;
     }
 
+    /**
+     * prepares the ray tracer for a render of the scene as it is now, before any of its rays are traced.
+     * called by the camera before every render, so changes to the scene between renders are seen
+     */
+    public void prepare() {
+    }
+
+    /**
+     * seeds the random samples of the calling thread before tracing the rays of a pixel,
+     * so a pixel gets the same samples in every render regardless of the thread rendering it
+     *
+     * @param seed the seed, calculated from the pixel
+     */
+    public void seed(long seed) {
+        if (blackBoard != null) blackBoard.seed(seed);
+    }
+
     /**
      * ray tracing the ray through the scene and finding the color of the ray
      *
@@ -4,7 +4,6 @@ import geometries.Geometries;
 import geometries.Intersectable;
 import geometries.Intersectable.GeoPoint;
 import geometries.Polygon;
-import lighting.LightSource;
 import primitives.*;
 import scene.Scene;
 
@@ -576,32 +575,13 @@ public class RegularGrid extends SimpleRayTracer {
     }
 
     @Override
-    public Color traceRay(Ray ray) {
-        GeoPoint closestPoint = traversGrid(ray);
-        return closestPoint == null ? scene.background
-                : calcColor(closestPoint, ray);
+    protected GeoPoint findClosestIntersection(Ray ray) {
+        return traversGrid(ray);
     }
 
     @Override
-    protected Color calcGlobalEffect(Ray ray, Double3 kx, int level, Double3 k) {
-        Double3 kkx = kx.product(k);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
-        GeoPoint gp = traversGrid(ray);
-        return gp == null ? scene.background
-                : calcColor(gp, ray, level - 1, kkx).scale(kx);
-    }
-
-    @Override
-    protected Double3 transparency(GeoPoint gp, LightSource light, Vector l, Vector n) {
-        Ray ray = new Ray(gp.point, l.scale(-1), n);
+    protected List<GeoPoint> findShadowIntersections(Ray ray, double distance) {
         Geometries geometries = geometriesInPath(ray);
-        if (geometries == null) return Double3.ONE;
-        var intersections = geometries.findGeoIntersections(ray, light.getDistance(gp.point));
-        if (intersections == null) return Double3.ONE;
-
-        Double3 ktr = Double3.ONE;
-        for (var intersection : intersections)
-            ktr = ktr.product(intersection.geometry.getMaterial().kT);
-        return ktr;
+        return geometries == null ? null : geometries.findGeoIntersections(ray, distance);
     }
 }
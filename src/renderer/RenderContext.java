@@ -0,0 +1,163 @@
+package renderer;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * the state of a single render of an image - its size and progress.
+ * every call to {@link Camera#renderImage()} creates its own context,
+ * so several renders can run at the same time in the same JVM.
+ * the render threads only add to striped counters, and a separate
+ * reporter thread samples them for the progress listener
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class RenderContext {
+    /**
+     * The amount of columns in the image
+     */
+    final int nX;
+    /**
+     * The amount of rows in the image
+     */
+    final int nY;
+    /**
+     * The area of the image that is rendered
+     */
+    final Tile area;
+    /**
+     * The total number of pixels in the render
+     */
+    private final long totalPixels;
+    /**
+     * The number of pixels processed so far
+     */
+    private final LongAdder pixels = new LongAdder();
+    /**
+     * The number of rays cast from the camera so far
+     */
+    private final LongAdder rays = new LongAdder();
+    /**
+     * The time the render started at, in nanoseconds
+     */
+    private final long startTime = System.nanoTime();
+    /**
+     * The time budget after which the remaining tiles are rendered at reduced quality,
+     * in nanoseconds (0 for unlimited)
+     */
+    private final long budget;
+    /**
+     * flag indicating whether the render was cancelled
+     */
+    private volatile boolean cancelled = false;
+    /**
+     * the listener for the progress of the render, or null
+     */
+    private final ProgressListener listener;
+    /**
+     * the reporter thread of the progress, or null if there is no listener
+     */
+    private final ScheduledExecutorService reporter;
+
+    /**
+     * ctor that initializes the values and starts the reporter
+     *
+     * @param nX             the amount of columns in the image
+     * @param nY             the amount of rows in the image
+     * @param area           the area of the image that is rendered
+     * @param listener       the listener for the progress, or null
+     * @param reportInterval the interval between two reports in milliseconds
+     * @param budget         the time budget of the render in milliseconds, 0 for unlimited
+     */
+    RenderContext(int nX, int nY, Tile area, ProgressListener listener, long reportInterval, long budget) {
+        this.nX = nX;
+        this.nY = nY;
+        this.area = area;
+        this.totalPixels = (long) area.width() * area.height();
+        this.budget = budget * 1_000_000L;
+        this.listener = listener;
+        if (listener == null) {
+            reporter = null;
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("render-progress").daemon().factory());
+        reporter.scheduleAtFixedRate(() -> listener.progress(getProgress()),
+                0, reportInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * counts a pixel that is done
+     */
+    void pixelDone() {
+        pixels.increment();
+    }
+
+    /**
+     * counts pixels that are done without rendering them
+     *
+     * @param amount the amount of pixels
+     */
+    void pixelsDone(long amount) {
+        pixels.add(amount);
+    }
+
+    /**
+     * counts rays that were cast from the camera
+     *
+     * @param amount the amount of rays
+     */
+    void raysCast(int amount) {
+        rays.add(amount);
+    }
+
+    /**
+     * cancels the render
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * checking if the render was cancelled
+     *
+     * @return true if it was, false if not
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * checking if the time budget of the render is over
+     *
+     * @return true if it is, false if not
+     */
+    boolean isOverBudget() {
+        return budget != 0 && System.nanoTime() - startTime > budget;
+    }
+
+    /**
+     * takes a snapshot of the progress of the render
+     *
+     * @return the progress
+     */
+    RenderProgress getProgress() {
+        return new RenderProgress(pixels.sum(), totalPixels, rays.sum(),
+                Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    /**
+     * stops the reporter, waits for a report in progress to end, and reports the final progress,
+     * so the listener is never called by two threads at the same time
+     */
+    void finish() {
+        if (reporter == null) return;
+        // stops the reports and awaits the termination of the reporter
+        reporter.close();
+        listener.progress(getProgress());
+    }
+}
@@ -0,0 +1,264 @@
+package renderer;
+
+import scene.Scene;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * coordinator of a render that is distributed between worker processes over tcp.
+ * every worker that connects gets the serialized scene and camera, and then rectangles of whole tiles
+ * one after the other, and sends back their pixels, which are written to the image writer of the camera.
+ * the rectangle of a worker that disconnects or doesn't answer in time is given to another worker
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public class RenderCoordinator implements AutoCloseable {
+    /**
+     * the message that tells a worker there are no more rectangles
+     */
+    static final int END = -1;
+    /**
+     * how often an idle worker checks for rectangles given back by dead workers, in milliseconds
+     */
+    private static final long POLL_INTERVAL = 100;
+
+    /**
+     * the camera with the image writer
+     */
+    private final Camera camera;
+    /**
+     * the serialized job sent to every worker
+     */
+    private final byte[] job;
+    /**
+     * the socket the workers connect to
+     */
+    private final ServerSocket server;
+    /**
+     * the connections of the workers
+     */
+    private final Set<Socket> workers = ConcurrentHashMap.newKeySet();
+    /**
+     * the rectangles that were not given to a worker yet
+     */
+    private final BlockingQueue<Tile> pending = new LinkedBlockingQueue<>();
+    /**
+     * the amount of rectangles that were given to another worker after their worker died
+     */
+    private final AtomicInteger redispatched = new AtomicInteger();
+    /**
+     * the amount of rectangles that are not written yet, or null before the render
+     */
+    private volatile CountDownLatch remaining = null;
+    /**
+     * the width and height of a rectangle in tiles
+     */
+    private int regionTiles = 4;
+    /**
+     * the time a worker has for rendering a rectangle in milliseconds
+     */
+    private int workerTimeout = 60_000;
+    /**
+     * logger for reporting workers that died
+     */
+    private static final Logger logger = Logger.getLogger("RenderCoordinator");
+
+    /**
+     * ctor that serializes the job and opens the socket for workers on the same machine
+     *
+     * @param camera the camera, with the image writer the image is written to
+     * @param scene  the scene
+     * @param tracer the factory of the ray tracer of the scene on the workers
+     * @param port   the port for the workers, 0 for any free port
+     */
+    public RenderCoordinator(Camera camera, Scene scene, TracerFactory tracer, int port) {
+        this(camera, scene, tracer, InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * ctor that serializes the job and opens the socket for the workers on a given address.
+     * the workers get the scene without authentication, so the address must be on a trusted network
+     *
+     * @param camera  the camera, with the image writer the image is written to
+     * @param scene   the scene
+     * @param tracer  the factory of the ray tracer of the scene on the workers
+     * @param address the local address the workers connect to
+     * @param port    the port for the workers, 0 for any free port
+     */
+    public RenderCoordinator(Camera camera, Scene scene, TracerFactory tracer, InetAddress address, int port) {
+        if (camera == null || scene == null || tracer == null || address == null)
+            throw new IllegalArgumentException("camera, scene, tracer and address must not be null");
+        this.camera = camera;
+        ImageWriter imageWriter = camera.getImageWriter();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new RenderJob(scene, camera, tracer, imageWriter.getNx(), imageWriter.getNy()));
+        } catch (NotSerializableException e) {
+            throw new IllegalArgumentException("the scene can't be sent to the workers", e);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error serializing the scene", e);
+        }
+        job = bytes.toByteArray();
+        try {
+            server = new ServerSocket(port, 0, address);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error opening " + address + ":" + port, e);
+        }
+    }
+
+    /**
+     * get function for the port
+     *
+     * @return the port the workers connect to
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * get function for the amount of rectangles that were given to another worker after their worker died
+     *
+     * @return the amount of rectangles
+     */
+    public int getRedispatched() {
+        return redispatched.get();
+    }
+
+    /**
+     * set function for the size of the rectangles given to the workers
+     *
+     * @param regionTiles the width and height of a rectangle in tiles
+     * @return the coordinator
+     */
+    public RenderCoordinator setRegionTiles(int regionTiles) {
+        if (regionTiles < 1) throw new IllegalArgumentException("a rectangle must have at least 1 tile");
+        this.regionTiles = regionTiles;
+        return this;
+    }
+
+    /**
+     * set function for the time a worker has for rendering a rectangle before it is considered dead,
+     * which is also the time the render waits without any connected worker before it fails
+     *
+     * @param millis the time in milliseconds
+     * @return the coordinator
+     */
+    public RenderCoordinator setWorkerTimeout(int millis) {
+        if (millis <= 0) throw new IllegalArgumentException("worker timeout must be greater than 0");
+        this.workerTimeout = millis;
+        return this;
+    }
+
+    /**
+     * renders the image with the workers that connect, and waits until all its pixels are written.
+     * workers may connect before or during the render
+     *
+     * @throws IllegalStateException if no worker was connected for the worker timeout
+     */
+    public void render() {
+        if (remaining != null) throw new IllegalStateException("the image was already rendered");
+        List<Tile> regions = camera.regions(regionTiles);
+        pending.addAll(regions);
+        remaining = new CountDownLatch(regions.size());
+        Thread.ofPlatform().daemon().name("render-coordinator").start(this::accept);
+        long idleSince = System.nanoTime();
+        try {
+            while (!remaining.await(POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                if (!workers.isEmpty()) idleSince = System.nanoTime();
+                else if (System.nanoTime() - idleSince > workerTimeout * 1_000_000L)
+                    throw new IllegalStateException("no worker was connected for " + workerTimeout + " ms, "
+                            + remaining.getCount() + " rectangles were not rendered");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the workers", e);
+        }
+    }
+
+    /**
+     * accepts the workers until the coordinator is closed
+     */
+    private void accept() {
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                workers.add(socket);
+                Thread.ofPlatform().daemon().name("render-worker-" + socket.getPort()).start(() -> serve(socket));
+            }
+        } catch (IOException ignore) {
+            // the coordinator was closed
+        }
+    }
+
+    /**
+     * sends the job and the rectangles to a worker, and writes the pixels it sends back.
+     * if the worker dies, its rectangle is given back to the other workers
+     *
+     * @param socket the connection of the worker
+     */
+    private void serve(Socket socket) {
+        Tile region = null;
+        try (socket) {
+            socket.setSoTimeout(workerTimeout);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out.writeInt(job.length);
+            out.write(job);
+            out.flush();
+            while (remaining.getCount() > 0) {
+                region = pending.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (region == null) continue;
+                out.writeInt(region.x());
+                out.writeInt(region.y());
+                out.writeInt(region.width());
+                out.writeInt(region.height());
+                out.flush();
+                byte[] bytes = new byte[12 * region.size()];
+                in.readFully(bytes);
+                float[] components = new float[3 * region.size()];
+                ByteBuffer.wrap(bytes).asFloatBuffer().get(components);
+                camera.getImageWriter().writeRegion(region, components);
+                region = null;
+                remaining.countDown();
+            }
+            out.writeInt(END);
+            out.flush();
+        } catch (IOException | InterruptedException e) {
+            if (region != null) {
+                pending.add(region);
+                redispatched.incrementAndGet();
+                logger.warning("worker " + socket.getRemoteSocketAddress() + " died, its rectangle "
+                        + region + " is given to another worker: " + e);
+            }
+        } finally {
+            workers.remove(socket);
+        }
+    }
+
+    /**
+     * closes the socket of the workers and the connections of the workers that are still connected
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+            for (Socket socket : workers) socket.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error closing the coordinator", e);
+        }
+    }
+}
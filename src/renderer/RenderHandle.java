@@ -0,0 +1,78 @@
+package renderer;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * class for controlling a render that runs in the background,
+ * returned by {@link Camera#renderImageAsync()}
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public class RenderHandle {
+    /**
+     * the state of the render
+     */
+    private final RenderContext context;
+    /**
+     * the completion of the render
+     */
+    private final CompletableFuture<Camera> future = new CompletableFuture<>();
+
+    /**
+     * ctor with the state of the render
+     *
+     * @param context the state of the render
+     */
+    RenderHandle(RenderContext context) {
+        this.context = context;
+    }
+
+    /**
+     * stops the render - tiles that didn't start yet are skipped,
+     * and the future completes with a {@link java.util.concurrent.CancellationException}
+     */
+    public void cancel() {
+        context.cancel();
+        future.cancel(false);
+    }
+
+    /**
+     * checking if the render was cancelled
+     *
+     * @return true if it was, false if not
+     */
+    public boolean isCancelled() {
+        return context.isCancelled();
+    }
+
+    /**
+     * get function for the completion of the render
+     *
+     * @return future that completes with the camera when all the pixels are written
+     */
+    public CompletableFuture<Camera> getFuture() {
+        return future;
+    }
+
+    /**
+     * takes a snapshot of the progress of the render
+     *
+     * @return the progress
+     */
+    public RenderProgress getProgress() {
+        return context.getProgress();
+    }
+
+    /**
+     * completes the future at the end of the render
+     *
+     * @param camera the camera that rendered the image
+     * @param error  the failure of the render or null
+     */
+    void done(Camera camera, Throwable error) {
+        if (error != null) future.completeExceptionally(error);
+        else if (context.isCancelled()) future.cancel(false);
+        else future.complete(camera);
+    }
+}
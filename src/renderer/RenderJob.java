@@ -0,0 +1,19 @@
+package renderer;
+
+import scene.Scene;
+
+import java.io.Serializable;
+
+/**
+ * everything a worker of a distributed render needs for rendering rectangles of the image
+ *
+ * @param scene  the scene
+ * @param camera the camera, without its image writer and ray tracer
+ * @param tracer the factory of the ray tracer of the scene
+ * @param nX     the amount of columns in the image
+ * @param nY     the amount of rows in the image
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+record RenderJob(Scene scene, Camera camera, TracerFactory tracer, int nX, int nY) implements Serializable {
+}
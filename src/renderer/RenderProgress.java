@@ -0,0 +1,63 @@
+package renderer;
+
+import java.time.Duration;
+
+/**
+ * A record representing a snapshot of the progress of a render
+ *
+ * @param pixelsDone  the amount of pixels that are done
+ * @param totalPixels the amount of pixels in the render
+ * @param rays        the amount of rays cast from the camera so far
+ * @param elapsed     the time since the render started
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public record RenderProgress(long pixelsDone, long totalPixels, long rays, Duration elapsed) {
+    /**
+     * the percent of the pixels that are done
+     *
+     * @return the percent between 0 and 100
+     */
+    public double percent() {
+        return totalPixels == 0 ? 100 : 100d * pixelsDone / totalPixels;
+    }
+
+    /**
+     * the average amount of pixels done in a second
+     *
+     * @return pixels per second
+     */
+    public double pixelsPerSecond() {
+        return perSecond(pixelsDone);
+    }
+
+    /**
+     * the average amount of rays cast in a second
+     *
+     * @return rays per second
+     */
+    public double raysPerSecond() {
+        return perSecond(rays);
+    }
+
+    /**
+     * estimates the time left until the render is done, by the average speed so far
+     *
+     * @return the estimated time left, or null if nothing is done yet
+     */
+    public Duration eta() {
+        if (pixelsDone == 0) return null;
+        return Duration.ofNanos((long) ((double) elapsed.toNanos() * (totalPixels - pixelsDone) / pixelsDone));
+    }
+
+    /**
+     * calculates the average amount of a count in a second
+     *
+     * @param count the count
+     * @return the count per second
+     */
+    private double perSecond(long count) {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : count * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,122 @@
+package renderer;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * worker of a render that is distributed by a {@link RenderCoordinator}.
+ * the worker gets the scene and camera from the coordinator, and renders the rectangles it gets
+ * with the threads of the camera until the coordinator has no more rectangles.
+ * only the classes of scenes and of the job are deserialized, and the class the tracer factory
+ * is written in has to be allowed too.
+ * run it in its own process with the host and port of the coordinator, and the allowed classes:
+ * {@code java renderer.RenderWorker localhost 5000 my.scenes.*}
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public class RenderWorker {
+    /**
+     * the classes that may be in a job, in the pattern syntax of {@link ObjectInputFilter.Config#createFilter}
+     */
+    private static final String JOB_CLASSES = "renderer.RenderJob;renderer.Camera;renderer.Tile;renderer.TileOrder;"
+            + "primitives.*;geometries.*;lighting.*;scene.*;java.lang.invoke.SerializedLambda;java.lang.Enum;"
+            + "java.lang.Object;java.util.ArrayList;java.util.LinkedList;java.util.CollSer;"
+            + "java.util.ImmutableCollections$*;";
+    /**
+     * the limits of a job, against streams that are too deep or too big to be a scene
+     */
+    private static final String JOB_LIMITS = "maxdepth=100;maxrefs=10000000;";
+
+    /**
+     * the host of the coordinator
+     */
+    private final String host;
+    /**
+     * the port of the coordinator
+     */
+    private final int port;
+    /**
+     * the classes that may be deserialized besides the classes of the job
+     */
+    private String allowedClasses = "";
+
+    /**
+     * ctor with the address of the coordinator
+     *
+     * @param host the host of the coordinator
+     * @param port the port of the coordinator
+     */
+    public RenderWorker(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * set function for the classes that may be deserialized besides the classes of scenes and of the job,
+     * like the class the tracer factory is written in
+     *
+     * @param patterns the classes, in the pattern syntax of {@link ObjectInputFilter.Config#createFilter},
+     *                 like "my.scenes.*" or "my.scenes.Scenes*" for a class and its lambdas
+     * @return the worker
+     */
+    public RenderWorker setAllowedClasses(String patterns) {
+        if (patterns == null || patterns.contains("!"))
+            throw new IllegalArgumentException("allowed classes must not be null or rejected");
+        this.allowedClasses = patterns.isEmpty() || patterns.endsWith(";") ? patterns : patterns + ";";
+        return this;
+    }
+
+    /**
+     * connects to the coordinator and renders rectangles until it has no more
+     *
+     * @return the amount of rectangles that were rendered
+     */
+    public int run() {
+        try (Socket socket = new Socket(host, port)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            RenderJob job;
+            try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                objects.setObjectInputFilter(ObjectInputFilter.Config.createFilter(
+                        JOB_LIMITS + JOB_CLASSES + allowedClasses + "!*"));
+                job = (RenderJob) objects.readObject();
+            }
+            RayTracerBase rayTracer = job.tracer().create(job.scene());
+
+            int rendered = 0;
+            for (int x = in.readInt(); x != RenderCoordinator.END; x = in.readInt()) {
+                Tile region = new Tile(x, in.readInt(), in.readInt(), in.readInt());
+                float[] components = job.camera().renderRegion(rayTracer, job.nX(), job.nY(), region);
+                ByteBuffer buffer = ByteBuffer.allocate(4 * components.length);
+                buffer.asFloatBuffer().put(components);
+                out.write(buffer.array());
+                out.flush();
+                rendered++;
+            }
+            return rendered;
+        } catch (InvalidClassException e) {
+            throw new IllegalStateException("the job of " + host + ":" + port + " has a class that is not allowed", e);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("I/O error with the coordinator " + host + ":" + port, e);
+        }
+    }
+
+    /**
+     * runs a worker
+     *
+     * @param args the host and port of the coordinator, and optionally the allowed classes
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("usage: java renderer.RenderWorker <host> <port> [allowed classes]");
+            System.exit(1);
+        }
+        int rendered = new RenderWorker(args[0], Integer.parseInt(args[1]))
+                .setAllowedClasses(args.length == 3 ? args[2] : "").run();
+        System.out.println("rendered " + rendered + " rectangles");
+    }
+}
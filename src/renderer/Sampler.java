@@ -0,0 +1,28 @@
+package renderer;
+
+/**
+ * interface for generating the sample points of a beam of rays.
+ * the samples of every thread are independent, and are seeded for every pixel,
+ * so a pixel gets the same samples in every render regardless of the thread rendering it
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public interface Sampler {
+    /**
+     * seeds the samples of the calling thread
+     *
+     * @param seed the seed, usually calculated from the pixel
+     */
+    void seed(long seed);
+
+    /**
+     * generates a new set of n * n sample points in the unit square [0,1)x[0,1)
+     * for the calling thread
+     *
+     * @param n  the amount of samples in a row of the set
+     * @param xs array for the x coordinates of the samples, at least n * n long
+     * @param ys array for the y coordinates of the samples, at least n * n long
+     */
+    void next(int n, double[] xs, double[] ys);
+}
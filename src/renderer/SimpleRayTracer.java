@@ -1,11 +1,17 @@
 package renderer;
 
+import geometries.Geometry;
 import geometries.Intersectable.GeoPoint;
 import lighting.*;
 import primitives.*;
 import scene.Scene;
 
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import static primitives.Util.alignZero;
 
@@ -17,13 +23,64 @@ import static primitives.Util.alignZero;
  */
 public class SimpleRayTracer extends RayTracerBase {
     /**
-     * Maximum recursion level for calculating global effects (reflection and refraction)
+     * Default maximum recursion level for calculating global effects (reflection and refraction)
      */
     private static final int MAX_CALC_COLOR_LEVEL = 10;
+    /**
+     * Default minimum factor to stop recursion for global effects
+     */
+    private static final double MIN_CALC_COLOR_K = 0.001;
+    /**
+     * The minimal cosine used for estimating the contribution of a light in light sampling
+     */
+    private static final double MIN_LIGHT_ESTIMATE = 0.05;
+
+    /**
+     * Maximum recursion level for calculating global effects
+     */
+    private int maxLevel = MAX_CALC_COLOR_LEVEL;
     /**
      * Minimum factor to stop recursion for global effects
      */
-    protected static final Double3 MIN_CALC_COLOR_K = new Double3(0.001);
+    private double minK = MIN_CALC_COLOR_K;
+    /**
+     * the factor under which paths are stopped by russian roulette (0 for never)
+     */
+    private double rouletteK = 0;
+    /**
+     * the amount of lights picked for every point, 0 for all the lights
+     */
+    private int lightSamples = 0;
+    /**
+     * the random generator of the russian roulette and the light sampling of every thread
+     */
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(SplittableRandom::new);
+    /**
+     * the amount of points shaded at every depth of the paths, where 0 is the point seen by the camera
+     */
+    private LongAdder[] depths = newDepths(MAX_CALC_COLOR_LEVEL);
+    /**
+     * the amount of paths stopped by the russian roulette
+     */
+    private final LongAdder rouletteStops = new LongAdder();
+    /**
+     * the last geometry that blocked every light completely, of every thread of the current render.
+     * it is kept by the ray tracer and not by the threads, so the pool threads don't keep the scene after
+     * the render, and it is replaced by {@link #prepare()} so a render doesn't get occluders of a former scene
+     */
+    private volatile Map<Thread, Map<LightSource, Geometry>> occluders = new ConcurrentHashMap<>();
+    /**
+     * the amount of shadow rays cast
+     */
+    private final LongAdder shadowRays = new LongAdder();
+    /**
+     * the amount of shadow rays that were found blocked by the last occluder of their light
+     */
+    private final LongAdder occluderHits = new LongAdder();
+    /**
+     * the index of the lights of the scene, built by {@link #prepare()} or by the first ray, or null
+     */
+    private volatile LightIndex lightIndex = null;
 
     /**
      * ctor with given scene
@@ -44,6 +101,153 @@ public class SimpleRayTracer extends RayTracerBase {
         super(s, blackBoard);
     }
 
+    /**
+     * builds the index of the lights again, with the lights of the scene and their influence as they are now,
+     * and forgets the occluders of the former renders
+     */
+    @Override
+    public void prepare() {
+        lightIndex = new LightIndex(scene.lights);
+        occluders = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * the index of the lights, built by the first ray if the ray tracer was not prepared for a render
+     *
+     * @return the index
+     */
+    private LightIndex lightIndex() {
+        LightIndex index = lightIndex;
+        if (index == null) lightIndex = index = new LightIndex(scene.lights);
+        return index;
+    }
+
+    /**
+     * setter for the maximum recursion level of reflection and refraction,
+     * where 1 means no reflection and refraction at all
+     *
+     * @param maxLevel the maximum level
+     * @return the ray tracer
+     */
+    public SimpleRayTracer setMaxLevel(int maxLevel) {
+        if (maxLevel < 1)
+            throw new IllegalArgumentException("max level must be at least 1");
+        this.maxLevel = maxLevel;
+        this.depths = newDepths(maxLevel);
+        return this;
+    }
+
+    /**
+     * setter for the minimum attenuation factor under which a path is stopped
+     *
+     * @param minK the minimum factor
+     * @return the ray tracer
+     */
+    public SimpleRayTracer setMinK(double minK) {
+        if (minK < 0 || minK >= 1)
+            throw new IllegalArgumentException("min k must be between 0 and 1");
+        this.minK = minK;
+        return this;
+    }
+
+    /**
+     * setter for russian roulette - a path with an attenuation factor under the given one
+     * continues with a probability relative to its factor, and is scaled up if it does,
+     * so the image is darker or brighter only by noise
+     *
+     * @param rouletteK the factor to start the roulette from, 0 for never
+     * @return the ray tracer
+     */
+    public SimpleRayTracer setRussianRoulette(double rouletteK) {
+        if (rouletteK < 0 || rouletteK > 1)
+            throw new IllegalArgumentException("roulette k must be between 0 and 1");
+        this.rouletteK = rouletteK;
+        return this;
+    }
+
+    /**
+     * setter for light sampling - when a point may be affected by more lights than the given amount,
+     * only that amount of lights is picked randomly, proportionally to their estimated contribution,
+     * and shadow rays are cast only to them
+     *
+     * @param lightSamples the amount of lights to pick for every point, 0 for all the lights
+     * @return the ray tracer
+     */
+    public SimpleRayTracer setLightSampling(int lightSamples) {
+        if (lightSamples < 0)
+            throw new IllegalArgumentException("the amount of light samples must not be negative");
+        this.lightSamples = lightSamples;
+        return this;
+    }
+
+    /**
+     * get function for the distribution of the depths of the paths
+     *
+     * @return the amount of points shaded at every depth, where 0 is the point seen by the camera
+     */
+    public long[] getDepthHistogram() {
+        long[] histogram = new long[depths.length];
+        for (int i = 0; i < histogram.length; i++)
+            histogram[i] = depths[i].sum();
+        return histogram;
+    }
+
+    /**
+     * get function for the amount of paths stopped by the russian roulette
+     *
+     * @return the amount of paths
+     */
+    public long getRouletteStops() {
+        return rouletteStops.sum();
+    }
+
+    /**
+     * get function for the amount of shadow rays cast
+     *
+     * @return the amount of shadow rays
+     */
+    public long getShadowRays() {
+        return shadowRays.sum();
+    }
+
+    /**
+     * get function for the amount of shadow rays that were found blocked by the cached occluder
+     * of their light, without going over the whole scene
+     *
+     * @return the amount of shadow rays
+     */
+    public long getOccluderHits() {
+        return occluderHits.sum();
+    }
+
+    /**
+     * resets the depth histogram and the counters of the russian roulette and the shadow rays
+     */
+    public void resetStatistics() {
+        for (LongAdder depth : depths) depth.reset();
+        rouletteStops.reset();
+        shadowRays.reset();
+        occluderHits.reset();
+    }
+
+    /**
+     * creates the counters of the depth histogram
+     *
+     * @param maxLevel the maximum recursion level
+     * @return the counters
+     */
+    private static LongAdder[] newDepths(int maxLevel) {
+        LongAdder[] depths = new LongAdder[maxLevel];
+        for (int i = 0; i < maxLevel; i++) depths[i] = new LongAdder();
+        return depths;
+    }
+
+    @Override
+    public void seed(long seed) {
+        super.seed(seed);
+        if (rouletteK != 0 || lightSamples != 0) random.set(new SplittableRandom(~seed));
+    }
+
     /**
      * calculates the color of the given point in the image
      * with all affecting lights
@@ -53,7 +257,7 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return the color of geoPoint
      */
     protected Color calcColor(GeoPoint geoPoint, Ray ray) {
-        return calcColor(geoPoint, ray, MAX_CALC_COLOR_LEVEL, Double3.ONE)
+        return calcColor(geoPoint, ray, maxLevel, Double3.ONE)
                 .add(scene.ambientLight.getIntensity());
     }
 
@@ -67,54 +271,202 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return the color of geoPoint
      */
     protected Color calcColor(GeoPoint geoPoint, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(geoPoint, ray, k);
+        depths[maxLevel - level].increment();
+        Shading shading = new Shading(geoPoint, ray, k);
+        Color color = calcLocalEffects(shading);
         return 1 == level ? color
-                : color.add(calcGlobalEffects(geoPoint, ray, level, k));
+                : color.add(calcGlobalEffects(shading, level));
     }
 
     /**
      * Calculates the local effects of light on a given GeoPoint.
      *
-     * @param gp  the shape and the point
-     * @param ray the ray from the camera
-     * @param k   the attenuation factor
+     * @param s the shading values of the point
      * @return the result color
      */
-    private Color calcLocalEffects(GeoPoint gp, Ray ray, Double3 k) {
-        Vector n = gp.geometry.getNormal(gp.point);
-        Vector v = ray.getDirection();
-        double nv = alignZero(n.dotProduct(v));
-        if (nv == 0) return Color.BLACK;
-
-        Material material = gp.geometry.getMaterial();
-        Color color = gp.geometry.getEmission();
-        for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(gp.point);
-            var rayBeam = blackBoard == null || lightSource instanceof DirectionalLight ?
-                    List.of(l.scale(-1))
-                    : blackBoard.beamOfRays(gp.point, lightSource.getDistance(gp.point),
-                    ((PointLight) lightSource).getRadius(), l);
-
-            Color BeamColor = Color.BLACK;
-
-            for (Vector vec : rayBeam) {
-                Vector l2 = vec.scale(-1);
-                double ln = alignZero(l2.dotProduct(n));
-                if (ln * nv > 0) {
-                    Double3 ktr = transparency(gp, lightSource, l2, n);
-                    if (ktr.product(k).greaterThan(MIN_CALC_COLOR_K)) {
-                        Color iL = lightSource.getIntensity(gp.point).scale(ktr);
-                        BeamColor = BeamColor.add(
-                                iL.scale(calcDiffusive(material, ln)
-                                        .add(calcSpecular(material, n, l2, ln, v))));
-                    }
-                }
+    private Color calcLocalEffects(Shading s) {
+        if (s.nv == 0) return Color.BLACK;
+
+        Color color = s.gp.geometry.getEmission();
+        LightSource[] lights = lightIndex().lightsAt(s.point);
+        if (lightSamples != 0 && lights.length > lightSamples)
+            return color.add(calcSampledLightsColor(s, lights));
+        for (LightSource lightSource : lights)
+            if (lightSource.affects(s.point))
+                color = color.add(calcLightEffect(s, lightSource));
+        return color;
+    }
+
+    /**
+     * Calculates the effect of a few lights on a given GeoPoint, picked randomly by their estimated
+     * contribution - the intensity at the point times the cosine of the angle of the light.
+     * every picked light is weighted by the inverse of its probability, so on average
+     * the color is the same as the color of all the lights
+     *
+     * @param s      the shading values of the point
+     * @param lights the lights that may affect the point
+     * @return the estimated color of all the lights
+     */
+    private Color calcSampledLightsColor(Shading s, LightSource[] lights) {
+        double[] cdf = new double[lights.length];
+        double total = 0;
+        for (int i = 0; i < lights.length; i++) {
+            total += estimateLight(s, lights[i]);
+            cdf[i] = total;
+        }
+        if (total == 0) return Color.BLACK;
+
+        SplittableRandom r = random.get();
+        Color color = Color.BLACK;
+        for (int sample = 0; sample < lightSamples; sample++) {
+            double u = r.nextDouble() * total;
+            // binary search for the first light whose cumulative estimate passes u
+            int low = 0, high = lights.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cdf[mid] > u) high = mid;
+                else low = mid + 1;
             }
-            color = color.add(BeamColor.reduce(rayBeam.size()));
+            double probability = (cdf[low] - (low == 0 ? 0 : cdf[low - 1])) / total;
+            color = color.add(calcLightEffect(s, lights[low]).scale(1 / probability));
+        }
+        return color.reduce(lightSamples);
+    }
+
+    /**
+     * estimates the contribution of a light to a given GeoPoint without casting shadow rays.
+     * lights on the other side of the surface get a small estimate and not 0,
+     * since the rays to the rim of a soft light may still reach the point
+     *
+     * @param s           the shading values of the point
+     * @param lightSource the light
+     * @return the estimate, 0 only if the light surely doesn't affect the point
+     */
+    private double estimateLight(Shading s, LightSource lightSource) {
+        if (!lightSource.affects(s.point)) return 0;
+        double intensity = lightSource.getIntensity(s.point).max();
+        if (intensity == 0) return 0;
+        double ln = lightSource.getL(s.point).dotProduct(s.n);
+        return intensity * Math.max(s.nv > 0 ? ln : -ln, MIN_LIGHT_ESTIMATE);
+    }
+
+    /**
+     * Calculates the effect of a light on a given GeoPoint, with a beam of rays for soft shadows if needed.
+     * the direction, distance and intensity of the light are calculated once for all the rays
+     *
+     * @param s           the shading values of the point
+     * @param lightSource the light
+     * @return the color of the light at the point
+     */
+    private Color calcLightEffect(Shading s, LightSource lightSource) {
+        Vector l = lightSource.getL(s.point);
+        double distance = lightSource.getDistance(s.point);
+        if (blackBoard == null || lightSource instanceof DirectionalLight) {
+            Double3 ktr = calcLightTransparency(s, lightSource, l.scale(-1), distance);
+            return ktr == Double3.ZERO ? Color.BLACK
+                    : calcLightColor(s, lightSource.getIntensity(s.point), l, ktr);
+        }
+        Color iL = lightSource.getIntensity(s.point);
+        double radius = ((PointLight) lightSource).getRadius();
+        if (blackBoard.isAdaptive())
+            return calcAdaptiveBeamColor(s, lightSource, iL, l, distance, radius);
+        var rayBeam = blackBoard.beamOfRays(s.point, distance, radius, l);
+        blackBoard.countRays(rayBeam.size());
+        return calcBeamColor(s, lightSource, iL, distance, rayBeam);
+    }
+
+    /**
+     * Calculates the average effect of a light on a given GeoPoint through a beam of rays.
+     *
+     * @param s           the shading values of the point
+     * @param lightSource the light
+     * @param iL          the intensity of the light at the point
+     * @param distance    the distance from the light to the point
+     * @param rayBeam     the directions from the point to the light
+     * @return the average color of the beam
+     */
+    private Color calcBeamColor(Shading s, LightSource lightSource, Color iL, double distance,
+                                List<Vector> rayBeam) {
+        Color beamColor = Color.BLACK;
+        for (Vector vec : rayBeam) {
+            Double3 ktr = calcLightTransparency(s, lightSource, vec, distance);
+            if (ktr != Double3.ZERO)
+                beamColor = beamColor.add(calcLightColor(s, iL, vec.scale(-1), ktr));
+        }
+        return beamColor.reduce(rayBeam.size());
+    }
+
+    /**
+     * Calculates the average effect of a light on a given GeoPoint by a few rays to the rim of the light,
+     * and by the full beam of rays only if they don't agree whether the light is blocked.
+     *
+     * @param s           the shading values of the point
+     * @param lightSource the light
+     * @param iL          the intensity of the light at the point
+     * @param l           the direction from the light to the point
+     * @param distance    the distance from the light to the point
+     * @param radius      the radius of the light
+     * @return the average color of the rays
+     */
+    private Color calcAdaptiveBeamColor(Shading s, LightSource lightSource, Color iL, Vector l,
+                                        double distance, double radius) {
+        var rim = blackBoard.rimOfRays(s.point, distance, radius, l);
+        Color rimColor = Color.BLACK;
+        Double3 firstKtr = null;
+        boolean agree = true;
+        int rays = 0;
+        for (Vector vec : rim) {
+            // rays behind the surface are not cast, so they don't take part in the agreement
+            if (alignZero(vec.dotProduct(s.n)) * s.nv >= 0) continue;
+            rays++;
+            Double3 ktr = calcLightTransparency(s, lightSource, vec, distance);
+            if (firstKtr == null) firstKtr = ktr;
+            else if (agree && !firstKtr.equals(ktr)) agree = false;
+            if (ktr != Double3.ZERO)
+                rimColor = rimColor.add(calcLightColor(s, iL, vec.scale(-1), ktr));
+        }
+        Color color;
+        if (agree)
+            color = rimColor.reduce(rim.size());
+        else {
+            var rayBeam = blackBoard.beamOfRays(s.point, distance, radius, l);
+            rays += rayBeam.size();
+            color = calcBeamColor(s, lightSource, iL, distance, rayBeam);
         }
+        blackBoard.countRays(rays);
         return color;
     }
 
+    /**
+     * Calculates how much of a light passes to a given GeoPoint in a given direction.
+     *
+     * @param s           the shading values of the point
+     * @param lightSource the light
+     * @param toLight     the direction from the point to the light
+     * @param distance    the distance from the light to the point
+     * @return the transparency factor, or {@link Double3#ZERO} if the light doesn't affect the point
+     */
+    private Double3 calcLightTransparency(Shading s, LightSource lightSource, Vector toLight, double distance) {
+        // the light and the camera must be on the same side of the surface
+        if (alignZero(toLight.dotProduct(s.n)) * s.nv >= 0) return Double3.ZERO;
+        Double3 ktr = transparency(s, lightSource, toLight, distance);
+        return ktr.product(s.k).greaterThan(minK) ? ktr : Double3.ZERO;
+    }
+
+    /**
+     * Calculates the diffusive and specular effect of a light in a given direction on a given GeoPoint.
+     *
+     * @param s   the shading values of the point
+     * @param iL  the intensity of the light at the point
+     * @param l   the direction from the light to the point
+     * @param ktr the transparency factor
+     * @return the color
+     */
+    private Color calcLightColor(Shading s, Color iL, Vector l, Double3 ktr) {
+        double ln = alignZero(l.dotProduct(s.n));
+        return iL.scale(ktr).scale(calcDiffusive(s.material, ln).add(calcSpecular(s.material, s.n, l, ln, s.v)));
+    }
+
     /**
      * calculates the diffusive light on a given material
      *
@@ -145,88 +497,135 @@ public class SimpleRayTracer extends RayTracerBase {
     /**
      * Calculates the global effects (reflection and refraction) on the color of the given point.
      *
-     * @param geoPoint the given point
-     * @param ray      the ray from the camera
-     * @param level    the current recursion level
-     * @param k        the attenuation factor
+     * @param s     the shading values of the point
+     * @param level the current recursion level
      * @return the color with global effects
      */
-    private Color calcGlobalEffects(GeoPoint geoPoint, Ray ray, int level, Double3 k) {
-        Material material = geoPoint.geometry.getMaterial();
-        return calcGlobalEffect(constructRefractedRay(geoPoint, ray.getDirection()), material.kT, level, k)
-                .add(calcGlobalEffect(constructReflectedRay(geoPoint, ray.getDirection()), material.kR, level, k));
+    private Color calcGlobalEffects(Shading s, int level) {
+        Color color = Color.BLACK;
+        // the rays are constructed only for the effects that are not pruned
+        Double3 kt = globalEffectWeight(s.material.kT, s.k);
+        if (kt != null)
+            color = calcGlobalEffect(constructRefractedRay(s), kt, level, s.k);
+        Double3 kr = globalEffectWeight(s.material.kR, s.k);
+        if (kr != null)
+            color = color.add(calcGlobalEffect(constructReflectedRay(s), kr, level, s.k));
+        return color;
+    }
+
+    /**
+     * decides whether a path continues with a global effect, and with which weight.
+     * paths under the minimum factor are stopped, and paths under the roulette factor
+     * survive by chance and are scaled up to make up for the stopped ones
+     *
+     * @param kx the material property for reflection or refraction
+     * @param k  the attenuation factor
+     * @return the weight of the global effect, or null if the path is stopped
+     */
+    private Double3 globalEffectWeight(Double3 kx, Double3 k) {
+        Double3 kkx = kx.product(k);
+        if (kkx.lowerThan(minK)) return null;
+        if (rouletteK == 0) return kx;
+        double max = kkx.max();
+        if (max >= rouletteK) return kx;
+        if (random.get().nextDouble() * rouletteK >= max) {
+            rouletteStops.increment();
+            return null;
+        }
+        return kx.scale(rouletteK / max);
     }
 
     /**
      * Calculates a global effect (either reflection or refraction).
      *
      * @param ray   the reflection or refraction ray
-     * @param kx    the material property for reflection or refraction
+     * @param kx    the weight of the effect
      * @param level the current recursion level
      * @param k     the attenuation factor
      * @return the color due to the global effect
      */
-    protected Color calcGlobalEffect(Ray ray, Double3 kx, int level, Double3 k) {
-        Double3 kkx = kx.product(k);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
+    private Color calcGlobalEffect(Ray ray, Double3 kx, int level, Double3 k) {
         GeoPoint gp = findClosestIntersection(ray);
         return gp == null ? scene.background
-                : calcColor(gp, ray, level - 1, kkx).scale(kx);
+                : calcColor(gp, ray, level - 1, kx.product(k)).scale(kx);
     }
 
     /**
-     * Constructs a refracted ray from the given point and ray.
+     * Constructs a refracted ray from the given point.
      *
-     * @param geoPoint the point of intersection
-     * @param v        the direction of the original ray
+     * @param s the shading values of the point
      * @return the refracted ray
      */
-    private Ray constructRefractedRay(GeoPoint geoPoint, Vector v) {
-        Vector n = geoPoint.geometry.getNormal(geoPoint.point);
-        return new Ray(geoPoint.point, v, n);
+    private Ray constructRefractedRay(Shading s) {
+        return new Ray(s.point, s.v, s.n);
     }
 
-
     /**
-     * Constructs a reflected ray from the given point and ray.
+     * Constructs a reflected ray from the given point.
      *
-     * @param geoPoint the point of intersection
-     * @param v        the direction of the original ray
+     * @param s the shading values of the point
      * @return the reflected ray
      */
-    private Ray constructReflectedRay(GeoPoint geoPoint, Vector v) {
-        Vector n = geoPoint.geometry.getNormal(geoPoint.point);
-        Vector r = v.subtract(n.scale(2 * n.dotProduct(v)));
-        return new Ray(geoPoint.point, r, n);
+    private Ray constructReflectedRay(Shading s) {
+        Vector r = s.v.subtract(s.n.scale(2 * s.n.dotProduct(s.v)));
+        return new Ray(s.point, r, s.n);
     }
 
     /**
      * Calculates the transparency factor for a given point.
+     * the last opaque geometry that blocked the light in the current thread is tested first,
+     * since the shadow rays of nearby points are usually blocked by the same geometry
      *
-     * @param gp    the given geoPoint
-     * @param light the given light
-     * @param l     the light direction
-     * @param n     the normal from the shape
+     * @param s        the shading values of the point
+     * @param light    the given light
+     * @param toLight  the direction from the point to the light
+     * @param distance the distance from the light to the point
      * @return the transparency factor
      */
-    protected Double3 transparency(GeoPoint gp, LightSource light, Vector l, Vector n) {
-        Ray ray = new Ray(gp.point, l.scale(-1), n);
-        var intersections = scene.geometries.findGeoIntersections(ray, light.getDistance(gp.point));
+    private Double3 transparency(Shading s, LightSource light, Vector toLight, double distance) {
+        Ray ray = new Ray(s.point, toLight, s.n);
+        shadowRays.increment();
+        Map<LightSource, Geometry> cache =
+                occluders.computeIfAbsent(Thread.currentThread(), thread -> new IdentityHashMap<>());
+        Geometry occluder = cache.get(light);
+        if (occluder != null && occluder.findGeoIntersections(ray, distance) != null) {
+            occluderHits.increment();
+            return Double3.ZERO;
+        }
+
+        var intersections = findShadowIntersections(ray, distance);
         if (intersections == null) return Double3.ONE;
 
         Double3 ktr = Double3.ONE;
-        for (var intersection : intersections)
-            ktr = ktr.product(intersection.geometry.getMaterial().kT);
+        for (var intersection : intersections) {
+            Double3 kT = intersection.geometry.getMaterial().kT;
+            if (kT.equals(Double3.ZERO)) {
+                cache.put(light, intersection.geometry);
+                return Double3.ZERO;
+            }
+            ktr = ktr.product(kT);
+        }
         return ktr;
     }
 
+    /**
+     * finding all the shapes between the start of a shadow ray and the light
+     *
+     * @param ray      the shadow ray
+     * @param distance the distance to the light
+     * @return the intersections, or null if there aren't any
+     */
+    protected List<GeoPoint> findShadowIntersections(Ray ray, double distance) {
+        return scene.geometries.findGeoIntersections(ray, distance);
+    }
+
     /**
      * finding the closest shape that intersect with the ray
      *
      * @param ray the ray
      * @return the shape found or null if there isn't any
      */
-    private GeoPoint findClosestIntersection(Ray ray) {
+    protected GeoPoint findClosestIntersection(Ray ray) {
         var gp = scene.geometries.findGeoIntersections(ray);
         return ray.findClosestGeoPoint(gp);
     }
@@ -237,4 +636,56 @@ public class SimpleRayTracer extends RayTracerBase {
         return closestPoint == null ? scene.background
                 : calcColor(closestPoint, ray);
     }
+
+    /**
+     * the values of a hit point that are shared by all the lights and by the secondary rays,
+     * calculated once for every hit
+     */
+    private static final class Shading {
+        /**
+         * the shape and the point
+         */
+        final GeoPoint gp;
+        /**
+         * the point
+         */
+        final Point point;
+        /**
+         * the normal at the point
+         */
+        final Vector n;
+        /**
+         * the direction of the ray that hit the point
+         */
+        final Vector v;
+        /**
+         * n dot product v
+         */
+        final double nv;
+        /**
+         * the material of the shape
+         */
+        final Material material;
+        /**
+         * the attenuation factor
+         */
+        final Double3 k;
+
+        /**
+         * ctor that calculates the values of a hit
+         *
+         * @param gp  the shape and the point
+         * @param ray the ray that hit the point
+         * @param k   the attenuation factor
+         */
+        Shading(GeoPoint gp, Ray ray, Double3 k) {
+            this.gp = gp;
+            this.point = gp.point;
+            this.n = gp.geometry.getNormal(gp.point);
+            this.v = ray.getDirection();
+            this.nv = alignZero(n.dotProduct(v));
+            this.material = gp.geometry.getMaterial();
+            this.k = k;
+        }
+    }
 }
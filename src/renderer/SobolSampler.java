@@ -0,0 +1,51 @@
+package renderer;
+
+import java.util.SplittableRandom;
+
+/**
+ * sampler of the first two dimensions of the Sobol sequence.
+ * every set is scrambled by a random digital shift,
+ * so neighbouring pixels don't share the same pattern
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public class SobolSampler implements Sampler {
+    /**
+     * the value of the lowest bit of a 32 bit fraction
+     */
+    private static final double FRACTION_BIT = 0x1p-32;
+    /**
+     * the random generator of the shifts of every thread
+     */
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(SplittableRandom::new);
+
+    @Override
+    public void seed(long seed) {
+        random.set(new SplittableRandom(seed));
+    }
+
+    @Override
+    public void next(int n, double[] xs, double[] ys) {
+        SplittableRandom r = random.get();
+        int scrambleX = r.nextInt();
+        int scrambleY = r.nextInt();
+        for (int i = 0; i < n * n; i++) {
+            xs[i] = Integer.toUnsignedLong(Integer.reverse(i) ^ scrambleX) * FRACTION_BIT;
+            ys[i] = Integer.toUnsignedLong(sobol2(i) ^ scrambleY) * FRACTION_BIT;
+        }
+    }
+
+    /**
+     * the second dimension of the Sobol sequence, as a 32 bit fraction
+     *
+     * @param index the index in the sequence
+     * @return the bits of the fraction
+     */
+    private static int sobol2(int index) {
+        int result = 0;
+        for (int v = 1 << 31; index != 0; index >>>= 1, v ^= v >>> 1)
+            if ((index & 1) != 0) result ^= v;
+        return result;
+    }
+}
@@ -0,0 +1,23 @@
+package renderer;
+
+import java.io.Serializable;
+
+/**
+ * A record representing a rectangular block of pixels in an image,
+ * defined by its top left pixel and its size
+ *
+ * @param x      the column of the top left pixel
+ * @param y      the row of the top left pixel
+ * @param width  the amount of columns in the tile
+ * @param height the amount of rows in the tile
+ */
+record Tile(int x, int y, int width, int height) implements Serializable {
+    /**
+     * the amount of pixels in the tile
+     *
+     * @return width * height
+     */
+    int size() {
+        return width * height;
+    }
+}
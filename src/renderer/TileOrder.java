@@ -0,0 +1,22 @@
+package renderer;
+
+/**
+ * the order in which the tiles of an image are handed to the render threads
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+public enum TileOrder {
+    /**
+     * row after row, left to right
+     */
+    ROWS,
+    /**
+     * Z-order curve - interleaving the bits of the tile column and row
+     */
+    MORTON,
+    /**
+     * Hilbert curve - every tile is a neighbour of the tile before it
+     */
+    HILBERT
+}
@@ -0,0 +1,249 @@
+package renderer;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * class that splits an image into tiles and hands them to the render threads.
+ * the tiles are sorted along a space filling curve, so tiles that are rendered
+ * one after the other are close to each other in the scene,
+ * and the threads are balanced by the work stealing of a {@link ForkJoinPool}
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class TileScheduler {
+    /**
+     * the tiles of the image, sorted by the tile order
+     */
+    private final List<Tile> tiles;
+
+    /**
+     * ctor that splits the given area of the image into tiles
+     *
+     * @param x        the column of the top left pixel of the area
+     * @param y        the row of the top left pixel of the area
+     * @param width    the amount of columns in the area
+     * @param height   the amount of rows in the area
+     * @param tileSize the width and height of a tile
+     * @param order    the order of the tiles
+     */
+    TileScheduler(int x, int y, int width, int height, int tileSize, TileOrder order) {
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (height + tileSize - 1) / tileSize;
+        int n = Integer.highestOneBit(Math.max(1, Math.max(tilesX, tilesY) - 1)) << 1;
+
+        record Keyed(Tile tile, long key) {
+        }
+        List<Keyed> keyed = new ArrayList<>(tilesX * tilesY);
+        for (int ty = 0; ty < tilesY; ty++)
+            for (int tx = 0; tx < tilesX; tx++) {
+                int tileX = x + tx * tileSize;
+                int tileY = y + ty * tileSize;
+                Tile tile = new Tile(tileX, tileY,
+                        Math.min(tileSize, x + width - tileX), Math.min(tileSize, y + height - tileY));
+                long key = switch (order) {
+                    case ROWS -> (long) ty * tilesX + tx;
+                    case MORTON -> morton(tx, ty);
+                    case HILBERT -> hilbert(n, tx, ty);
+                };
+                keyed.add(new Keyed(tile, key));
+            }
+        keyed.sort(Comparator.comparingLong(Keyed::key));
+        tiles = keyed.stream().map(Keyed::tile).toList();
+    }
+
+    /**
+     * get function for the tiles
+     *
+     * @return the tiles in render order
+     */
+    List<Tile> getTiles() {
+        return tiles;
+    }
+
+    /**
+     * renders all the tiles in the calling thread
+     *
+     * @param action the rendering of a single tile
+     */
+    void render(Consumer<Tile> action) {
+        for (Tile tile : tiles) action.accept(tile);
+    }
+
+    /**
+     * renders all the tiles on the given pool and waits for them to finish.
+     * if the calling thread is interrupted while waiting, the render is cancelled and the tiles
+     * in progress are waited for, and the thread keeps its interrupt status
+     *
+     * @param pool   the pool of the render threads
+     * @param action the rendering of a single tile
+     * @param cancel cancels the render, so the remaining tiles are skipped
+     */
+    void render(ForkJoinPool pool, Consumer<Tile> action, Runnable cancel) {
+        if (tiles.isEmpty()) return;
+        ForkJoinTask<Void> task = pool.submit(new TileTask(action, 0, tiles.size()));
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            cancel.run();
+            task.quietlyJoin();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * renders the tiles on the given amount of virtual threads and waits for them to finish.
+     * the virtual threads share the carrier threads of the JVM, and every one of them takes
+     * the next tile from the shared order until none is left, so one thread renders many tiles
+     * and keeps the caches of its thread between them.
+     * if the calling thread is interrupted while waiting, the render is cancelled and the tiles
+     * in progress are waited for, and the thread keeps its interrupt status
+     *
+     * @param parallelism the maximum amount of tiles rendered at the same time
+     * @param action      the rendering of a single tile
+     * @param cancel      cancels the render, so the remaining tiles are skipped
+     */
+    void renderOnVirtualThreads(int parallelism, Consumer<Tile> action, Runnable cancel) {
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < tiles.size() && failure.get() == null; i = next.getAndIncrement())
+                try {
+                    action.accept(tiles.get(i));
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+        };
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, tiles.size()); i++)
+            threads.add(Thread.ofVirtual().name("render-tiles-" + i).start(worker));
+
+        boolean interrupted = false;
+        for (Thread thread : threads)
+            while (thread.isAlive())
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    if (!interrupted) cancel.run();
+                    interrupted = true;
+                }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failure.get() != null) throw failure.get();
+    }
+
+    /**
+     * task that renders a range of tiles, splitting it in half
+     * until a single tile is left so idle threads can steal the other half
+     */
+    private class TileTask extends RecursiveAction {
+        /**
+         * version of the serialized form
+         */
+        @Serial
+        private static final long serialVersionUID = 1L;
+        /**
+         * the rendering of a single tile
+         */
+        private final transient Consumer<Tile> action;
+        /**
+         * the index of the first tile in the range
+         */
+        private final int from;
+        /**
+         * the index after the last tile in the range
+         */
+        private final int to;
+
+        /**
+         * ctor with the range of the tiles
+         *
+         * @param action the rendering of a single tile
+         * @param from   the index of the first tile
+         * @param to     the index after the last tile
+         */
+        TileTask(Consumer<Tile> action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) action.accept(tiles.get(from));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TileTask(action, from, middle), new TileTask(action, middle, to));
+        }
+    }
+
+    /**
+     * calculates the index of a tile along the Z-order curve
+     *
+     * @param x the column of the tile
+     * @param y the row of the tile
+     * @return the index of the tile
+     */
+    static long morton(int x, int y) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    /**
+     * spreads the bits of a number so there is an empty bit between every two bits
+     *
+     * @param v the number
+     * @return the spread number
+     */
+    private static long spread(long v) {
+        v &= 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    /**
+     * calculates the index of a tile along the Hilbert curve
+     *
+     * @param n the size of the curve's square (power of 2)
+     * @param x the column of the tile
+     * @param y the row of the tile
+     * @return the index of the tile
+     */
+    static long hilbert(int n, int x, int y) {
+        long d = 0;
+        for (int s = n / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            // rotate the quadrant so the curve stays continuous
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = n - 1 - x;
+                    y = n - 1 - y;
+                }
+                int temp = x;
+                x = y;
+                y = temp;
+            }
+        }
+        return d;
+    }
+}
@@ -0,0 +1,52 @@
+package renderer;
+
+/**
+ * interface for mapping the unlimited colors of a render to the printed range of 0 to 255,
+ * applied to every component of every pixel when the image is saved
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+@FunctionalInterface
+public interface ToneMapper {
+    /**
+     * tone mapper that cuts every component above 255
+     */
+    ToneMapper CLAMP = value -> value;
+
+    /**
+     * maps a component of a color of the render
+     *
+     * @param value the component, 0 or more
+     * @return the printed component, values above 255 are cut
+     */
+    double map(double value);
+
+    /**
+     * creates a Reinhard tone mapper, which compresses the bright components smoothly instead of cutting them
+     *
+     * @param white the component that is mapped to 255, values above it are cut
+     * @return the tone mapper
+     */
+    static ToneMapper reinhard(double white) {
+        if (white <= 0)
+            throw new IllegalArgumentException("white must be positive");
+        double w2 = (white / 255) * (white / 255);
+        return value -> {
+            if (value >= white) return 255;
+            double x = value / 255;
+            return 255 * x * (1 + x / w2) / (1 + x);
+        };
+    }
+
+    /**
+     * creates a tone mapper that changes the exposure of the render before this mapping
+     *
+     * @param stops the exposure change in stops - every stop doubles the brightness
+     * @return the tone mapper
+     */
+    default ToneMapper withExposure(double stops) {
+        double scale = Math.pow(2, stops);
+        return value -> map(value * scale);
+    }
+}
@@ -0,0 +1,24 @@
+package renderer;
+
+import scene.Scene;
+
+import java.io.Serializable;
+
+/**
+ * interface for creating the ray tracer of a scene on every worker of a distributed render.
+ * the factory is serialized with the scene, so it should be a constructor reference
+ * or a lambda that sets the ray tracer up, like {@code SimpleRayTracer::new}
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+@FunctionalInterface
+public interface TracerFactory extends Serializable {
+    /**
+     * creates the ray tracer of a scene
+     *
+     * @param scene the scene
+     * @return the ray tracer
+     */
+    RayTracerBase create(Scene scene);
+}
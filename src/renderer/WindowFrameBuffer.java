@@ -0,0 +1,68 @@
+package renderer;
+
+/**
+ * frame buffer that keeps only the pixels of a rectangle of the image,
+ * for a worker of a distributed render that renders a single rectangle at a time
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class WindowFrameBuffer implements FrameBuffer {
+    /**
+     * the amount of columns in the image
+     */
+    private final int nX;
+    /**
+     * the rectangle of the image
+     */
+    private final Tile window;
+    /**
+     * the components of the pixels of the rectangle, row by row
+     */
+    private final float[] components;
+
+    /**
+     * ctor that allocates the array of the rectangle
+     *
+     * @param nX     the amount of columns in the image
+     * @param window the rectangle of the image
+     */
+    WindowFrameBuffer(int nX, Tile window) {
+        this.nX = nX;
+        this.window = window;
+        components = new float[3 * window.size()];
+    }
+
+    /**
+     * finds a component in the array of the rectangle
+     *
+     * @param index the index of the component in the image
+     * @return the index in the array
+     */
+    private int indexOf(long index) {
+        int row = (int) (index / (3L * nX)) - window.y();
+        int column = (int) (index % (3L * nX)) - 3 * window.x();
+        if (row < 0 || row >= window.height() || column < 0 || column >= 3 * window.width())
+            throw new IndexOutOfBoundsException("pixel outside the window " + window);
+        return row * 3 * window.width() + column;
+    }
+
+    @Override
+    public float get(long index) {
+        return components[indexOf(index)];
+    }
+
+    @Override
+    public void set(long index, float value) {
+        components[indexOf(index)] = value;
+    }
+
+    /**
+     * get function for the components of the pixels
+     *
+     * @return the red, green and blue components of the pixels of the rectangle, row by row
+     */
+    float[] getComponents() {
+        return components;
+    }
+}
@@ -5,6 +5,8 @@ import lighting.AmbientLight;
 import lighting.LightSource;
 import primitives.Color;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -14,7 +16,13 @@ import java.util.List;
  * @author Ishai zigdon
  * @author Zaki zafrani
  */
-public class Scene {
+public class Scene implements Serializable {
+    /**
+     * version of the serialized form
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * the name of the scene
      */
@@ -34,6 +42,7 @@ public class Scene {
     /**
      * list of all the lights on the scene
      */
+    @SuppressWarnings("serial") // the lists that are used are serializable
     public List<LightSource> lights = new LinkedList<>();
 
     //------------------------functions---------------------------------
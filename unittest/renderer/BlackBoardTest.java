@@ -0,0 +1,228 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * unit test for the beams of rays of the black board
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class BlackBoardTest {
+    /**
+     * Default constructor for BlackBoardTest.
+     */
+    BlackBoardTest() {/*just for the javadoc*/}
+
+    /**
+     * the amount of rays in a row of the grid
+     */
+    private static final int N = 9;
+    /**
+     * the point the beams are cast from
+     */
+    private static final Point P = new Point(1, 2, 3);
+    /**
+     * the distance of the disk from the point
+     */
+    private static final double DISTANCE = 50;
+    /**
+     * the radius of the disk
+     */
+    private static final double SIZE = 4;
+    /**
+     * allowed difference between the coordinates of two directions
+     */
+    private static final double DELTA = 1e-10;
+
+    /**
+     * sampler with the centers of the cells of the grid, by columns
+     */
+    private static class CenterSampler implements Sampler {
+        @Override
+        public void seed(long seed) {
+            // the samples don't depend on the seed
+        }
+
+        @Override
+        public void next(int n, double[] xs, double[] ys) {
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++) {
+                    xs[i * n + j] = (i + 0.5) / n;
+                    ys[i * n + j] = (j + 0.5) / n;
+                }
+        }
+    }
+
+    /**
+     * the beam of the grid on the disk, built point by point with the vectors of the primitives,
+     * at the centers of the cells
+     *
+     * @param v the direction from the disk to the point
+     * @return the directions from the point to the centers of the cells inside the disk
+     */
+    private static List<Vector> expectedBeam(Vector v) {
+        Vector right;
+        try {
+            right = v.crossProduct(Vector.X).normalize();
+        } catch (IllegalArgumentException e) {
+            right = v.crossProduct(Vector.Y).normalize();
+        }
+        Vector up = v.crossProduct(right).normalize();
+        Point gridCenter = P.add(v.scale(-DISTANCE));
+        double cellSize = 2 * SIZE / N;
+        Point topLeft = gridCenter.add(right.scale(-SIZE).add(up.scale(SIZE)));
+
+        List<Vector> beam = new LinkedList<>();
+        for (int i = 0; i < N; i++)
+            for (int j = 0; j < N; j++) {
+                Point pIJ = topLeft.add(right.scale((i + 0.5) * cellSize)).add(up.scale(-(j + 0.5) * cellSize));
+                if (gridCenter.distance(pIJ) <= SIZE) beam.add(pIJ.subtract(P).normalize());
+            }
+        return beam;
+    }
+
+    /**
+     * finds the point a ray from the point of the beams hits the plane of the disk at
+     *
+     * @param ray the direction of the ray
+     * @param v   the direction from the disk to the point
+     * @return the point on the plane of the disk
+     */
+    private static Point onDisk(Vector ray, Vector v) {
+        return P.add(ray.scale(-DISTANCE / ray.dotProduct(v)));
+    }
+
+    /**
+     * asserts that two beams go to the same points of the disk, up to a rotation around its center -
+     * every point is at the same distance from the center and from the next point
+     *
+     * @param expected the expected directions
+     * @param actual   the actual directions
+     * @param v        the direction from the disk to the point
+     * @param message  the message of a failure
+     */
+    private static void assertRotated(List<Vector> expected, List<Vector> actual, Vector v, String message) {
+        assertEquals(expected.size(), actual.size(), message + ": wrong amount of rays");
+        Point center = P.add(v.scale(-DISTANCE));
+        for (int i = 0; i < expected.size(); i++) {
+            Point e = onDisk(expected.get(i), v), a = onDisk(actual.get(i), v);
+            assertEquals(e.distance(center), a.distance(center), DELTA, message);
+            int next = (i + 1) % expected.size();
+            assertEquals(e.distance(onDisk(expected.get(next), v)), a.distance(onDisk(actual.get(next), v)), DELTA,
+                    message);
+        }
+    }
+
+    /**
+     * asserts that two lists of directions are the same
+     *
+     * @param expected the expected directions
+     * @param actual   the actual directions
+     * @param message  the message of a failure
+     */
+    private static void assertDirections(List<Vector> expected, List<Vector> actual, String message) {
+        assertEquals(expected.size(), actual.size(), message + ": wrong amount of rays");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getX(), actual.get(i).getX(), DELTA, message);
+            assertEquals(expected.get(i).getY(), actual.get(i).getY(), DELTA, message);
+            assertEquals(expected.get(i).getZ(), actual.get(i).getZ(), DELTA, message);
+        }
+    }
+
+    /**
+     * Test method for {@link BlackBoard#beamOfRays(Point, double, double, Vector)}
+     */
+    @Test
+    void testBeamOfRays() {
+        BlackBoard blackBoard = new BlackBoard(N).setSampler(new CenterSampler());
+        Vector v = new Vector(1, -2, 2).normalize();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the beam goes to the same points of the disk as the grid built with the vectors, rotated
+        blackBoard.seed(0);
+        assertRotated(expectedBeam(v), blackBoard.beamOfRays(P, DISTANCE, SIZE, v), v, "TC01: wrong beam");
+
+        //TC02: the same seed gives the same beam
+        BlackBoard random = new BlackBoard(N);
+        random.seed(42);
+        List<Vector> beam = random.beamOfRays(P, DISTANCE, SIZE, v);
+        random.seed(42);
+        assertDirections(beam, random.beamOfRays(P, DISTANCE, SIZE, v), "TC02: the beam is not reproducible");
+
+        //TC03: every ray of a random beam hits the disk
+        Point center = P.add(v.scale(-DISTANCE));
+        for (Vector ray : beam)
+            assertTrue(onDisk(ray, v).distance(center) <= SIZE + DELTA, "TC03: a ray misses the disk");
+
+        //TC04: the beams of the lights and bounces of a pixel are rotated differently
+        random.seed(42);
+        random.beamOfRays(P, DISTANCE, SIZE, v);
+        assertNotEquals(beam.getFirst(), random.beamOfRays(P, DISTANCE, SIZE, v).getFirst(),
+                "TC04: two beams of a pixel share the same points");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: a direction parallel to the x axis has the same beam as the grid built with the vectors
+        blackBoard.seed(0);
+        assertRotated(expectedBeam(Vector.X), blackBoard.beamOfRays(P, DISTANCE, SIZE, Vector.X), Vector.X,
+                "TC10: wrong beam");
+
+        //TC11: a disk without size has a single ray in the opposite direction
+        assertDirections(List.of(v.scale(-1)), blackBoard.beamOfRays(P, DISTANCE, 0, v), "TC11: wrong beam");
+    }
+
+    /**
+     * Test method for {@link BlackBoard#rimOfRays(Point, double, double, Vector)}
+     */
+    @Test
+    void testRimOfRays() {
+        BlackBoard blackBoard = new BlackBoard(N);
+        Vector v = new Vector(1, -2, 2).normalize();
+        Point center = P.add(v.scale(-DISTANCE));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the rays hit evenly spread points on the rim of the disk
+        blackBoard.seed(3);
+        List<Vector> rim = blackBoard.rimOfRays(P, DISTANCE, SIZE, v);
+        for (int i = 0; i < rim.size(); i++) {
+            Point point = onDisk(rim.get(i), v);
+            assertEquals(SIZE, point.distance(center), DELTA, "TC01: a ray misses the rim");
+            assertEquals(2 * SIZE * Math.sin(Math.PI / rim.size()),
+                    point.distance(onDisk(rim.get((i + 1) % rim.size()), v)), DELTA, "TC01: the rim is not even");
+        }
+
+        //TC02: the rim is rotated differently for every light
+        assertNotEquals(rim.getFirst(), blackBoard.rimOfRays(P, DISTANCE, SIZE, v).getFirst(),
+                "TC02: two rims share the same points");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: a disk without size has a single ray in the opposite direction
+        assertDirections(List.of(v.scale(-1)), blackBoard.rimOfRays(P, DISTANCE, 0, v), "TC10: wrong rim");
+    }
+
+    /**
+     * Test method for {@link BlackBoard#setStatistics(boolean)}
+     */
+    @Test
+    void testStatistics() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the rays of the shading points are counted when the statistics are on
+        BlackBoard blackBoard = new BlackBoard(N).setStatistics(true);
+        blackBoard.countRays(8);
+        blackBoard.countRays(16);
+        assertEquals(12, blackBoard.getAverageRaysPerPoint(), DELTA, "TC01: wrong average");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: nothing is counted by default
+        blackBoard = new BlackBoard(N);
+        blackBoard.countRays(8);
+        assertEquals(0, blackBoard.getAverageRaysPerPoint(), DELTA, "TC10: rays were counted");
+    }
+}
@@ -1,12 +1,32 @@
 package renderer;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 import scene.Scene;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.MissingResourceException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 // import scene.Scene;
@@ -116,4 +136,594 @@ class CameraTest {
                 "vUp and vTo not verticals");
     }
 
-}
\ No newline at end of file
+    /**
+     * ray tracer that colors a ray by its direction, counts the rays,
+     * and crashes after a given amount of rays
+     */
+    private static class CountingTracer extends RayTracerBase {
+        /**
+         * the amount of traced rays
+         */
+        final AtomicInteger rays = new AtomicInteger();
+        /**
+         * the amount of rays after which the tracer crashes
+         */
+        private final int crashAfter;
+
+        /**
+         * ctor with the amount of rays after which the tracer crashes
+         *
+         * @param crashAfter the amount of rays
+         */
+        CountingTracer(int crashAfter) {
+            super(new Scene("Test"));
+            this.crashAfter = crashAfter;
+        }
+
+        @Override
+        public Color traceRay(Ray r) {
+            if (rays.incrementAndGet() > crashAfter) throw new IllegalStateException("crash");
+            Vector v = r.getDirection();
+            return new Color(Math.abs(v.getX()) * 255, Math.abs(v.getY()) * 255, 100);
+        }
+    }
+
+    /**
+     * ray tracer that takes a millisecond for every ray, remembers the thread of the first ray,
+     * and counts the rays that are traced at the same time
+     */
+    private static class SleepingTracer extends CountingTracer {
+        /**
+         * counted down when the first ray is traced
+         */
+        final CountDownLatch started = new CountDownLatch(1);
+        /**
+         * the thread that traced the first ray
+         */
+        volatile Thread thread = null;
+        /**
+         * the amount of rays that are traced now
+         */
+        private final AtomicInteger tracing = new AtomicInteger();
+        /**
+         * the maximal amount of rays that were traced at the same time
+         */
+        final AtomicInteger maxTracing = new AtomicInteger();
+        /**
+         * the threads that traced rays
+         */
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        /**
+         * ctor of a tracer that doesn't crash
+         */
+        SleepingTracer() {
+            super(Integer.MAX_VALUE);
+        }
+
+        @Override
+        public Color traceRay(Ray r) {
+            if (started.getCount() > 0) {
+                thread = Thread.currentThread();
+                started.countDown();
+            }
+            threads.add(Thread.currentThread());
+            maxTracing.accumulateAndGet(tracing.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                tracing.decrementAndGet();
+            }
+            return super.traceRay(r);
+        }
+    }
+
+    /**
+     * creates a camera of a given image and ray tracer for the render tests
+     *
+     * @param imageWriter the image writer
+     * @param tracer      the ray tracer
+     * @return the camera builder
+     */
+    private static Camera.Builder renderBuilder(ImageWriter imageWriter, RayTracerBase tracer) {
+        return Camera.getBuilder()
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10).setVpSize(10, 10)
+                .setTileSize(8)
+                .setImageWriter(imageWriter).setRayTracer(tracer);
+    }
+
+    /**
+     * Test method for
+     * {@link Camera.Builder#setVirtualThreads(int)}
+     */
+    @Test
+    void testVirtualThreads() {
+        final int n = 24;
+        ImageWriter expected = new ImageWriter("virtualExpected", n, n);
+        renderBuilder(expected, new CountingTracer(Integer.MAX_VALUE)).build().renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the tiles are rendered on virtual threads, into the same image as in the calling thread
+        //TC02: no more tiles than the parallelism are rendered at the same time
+        SleepingTracer tracer = new SleepingTracer();
+        ImageWriter imageWriter = new ImageWriter("virtual", n, n);
+        renderBuilder(imageWriter, tracer).setVirtualThreads(2).build().renderImage();
+        assertTrue(tracer.thread.isVirtual(), "TC01: the tiles were not rendered on virtual threads");
+        assertEquals(n * n, tracer.rays.get(), "TC01: wrong amount of rays");
+        BufferedImage image = imageWriter.toImage(), expectedImage = expected.toImage();
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                assertEquals(expectedImage.getRGB(j, i), image.getRGB(j, i), "TC01: wrong pixel");
+        assertTrue(tracer.maxTracing.get() <= 2, "TC02: too many tiles were rendered at the same time");
+
+        //TC03: the virtual threads render many tiles each, instead of a thread for every tile
+        assertEquals(2, tracer.threads.size(), "TC03: wrong amount of threads for the tiles");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: a single tile at a time
+        tracer = new SleepingTracer();
+        renderBuilder(new ImageWriter("virtual", n, n), tracer).setVirtualThreads(1).build().renderImage();
+        assertEquals(1, tracer.maxTracing.get(), "TC10: tiles were rendered at the same time");
+        //TC11: there must be a tile in progress
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setVirtualThreads(0),
+                "TC11: zero parallelism");
+    }
+
+    /**
+     * Test method for
+     * {@link Camera#renderImage()} of several cameras at the same time
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void testConcurrentRenders() throws InterruptedException {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: renders of different images at the same time keep their own progress and pixels
+        int[] sizes = {16, 24};
+        ImageWriter[] images = new ImageWriter[sizes.length];
+        SleepingTracer[] tracers = new SleepingTracer[sizes.length];
+        AtomicLong[] pixels = new AtomicLong[sizes.length];
+        Thread[] renders = new Thread[sizes.length];
+        for (int r = 0; r < sizes.length; r++) {
+            images[r] = new ImageWriter("concurrent" + r, sizes[r], sizes[r]);
+            tracers[r] = new SleepingTracer();
+            AtomicLong done = pixels[r] = new AtomicLong();
+            Camera camera = renderBuilder(images[r], tracers[r]).setMultithreading(2)
+                    .setProgressListener(progress -> done.set(progress.pixelsDone()), 1000).build();
+            renders[r] = new Thread(camera::renderImage);
+        }
+        for (Thread render : renders) render.start();
+        for (Thread render : renders) render.join();
+        for (int r = 0; r < sizes.length; r++) {
+            int n = sizes[r];
+            assertEquals(n * n, tracers[r].rays.get(), "TC01: wrong amount of rays");
+            assertEquals(n * n, pixels[r].get(), "TC01: wrong progress");
+            ImageWriter expected = new ImageWriter("concurrentExpected", n, n);
+            renderBuilder(expected, new CountingTracer(Integer.MAX_VALUE)).build().renderImage();
+            BufferedImage image = images[r].toImage(), expectedImage = expected.toImage();
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    assertEquals(expectedImage.getRGB(j, i), image.getRGB(j, i), "TC01: wrong pixel");
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link Camera.Builder#setProgressListener(ProgressListener, long)} and {@link RenderProgress}
+     */
+    @Test
+    void testProgressListener() {
+        final int n = 24;
+        List<RenderProgress> reports = Collections.synchronizedList(new ArrayList<>());
+        renderBuilder(new ImageWriter("progress", n, n), new SleepingTracer())
+                .setProgressListener(reports::add, 20).build().renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the progress is reported during the render, and grows until all the pixels are done
+        assertTrue(reports.size() > 2, "TC01: the progress was not reported during the render");
+        for (int i = 1; i < reports.size(); i++)
+            assertTrue(reports.get(i).pixelsDone() >= reports.get(i - 1).pixelsDone(),
+                    "TC01: the progress went back");
+        RenderProgress last = reports.getLast();
+        assertEquals(n * n, last.pixelsDone(), "TC01: wrong amount of pixels done");
+        assertEquals(n * n, last.totalPixels(), "TC01: wrong amount of pixels");
+        assertEquals(n * n, last.rays(), "TC01: wrong amount of rays");
+        assertEquals(100, last.percent(), 1e-10, "TC01: wrong percent");
+        assertEquals(Duration.ZERO, last.eta(), "TC01: wrong eta");
+
+        //TC02: the rates and the eta are calculated from the elapsed time
+        RenderProgress progress = new RenderProgress(50, 200, 100, Duration.ofSeconds(2));
+        assertEquals(25, progress.percent(), 1e-10, "TC02: wrong percent");
+        assertEquals(25, progress.pixelsPerSecond(), 1e-10, "TC02: wrong pixels per second");
+        assertEquals(50, progress.raysPerSecond(), 1e-10, "TC02: wrong rays per second");
+        assertEquals(Duration.ofSeconds(6), progress.eta(), "TC02: wrong eta");
+
+        //TC03: the console prints the end of a render once, even if it is reported again
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(printed));
+            ProgressListener console = ProgressListener.console(10);
+            console.progress(new RenderProgress(200, 200, 200, Duration.ofSeconds(1)));
+            console.progress(new RenderProgress(200, 200, 200, Duration.ofSeconds(1)));
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals(1, printed.toString().split("\r", -1).length - 1, "TC03: the end was printed twice");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: there is no eta before a pixel is done
+        assertNull(new RenderProgress(0, 200, 0, Duration.ofSeconds(2)).eta(), "TC10: eta without pixels");
+        //TC11: an empty image is done
+        assertEquals(100, new RenderProgress(0, 0, 0, Duration.ZERO).percent(), 1e-10, "TC11: wrong percent");
+        //TC12: the interval between reports must be positive
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setProgressListener(reports::add, 0),
+                "TC12: zero interval");
+    }
+
+    /**
+     * Test method for
+     * {@link Camera.Builder#setProgressive(FrameListener, int)}
+     */
+    @Test
+    void testProgressive() {
+        final int n = 24;
+        ImageWriter expected = new ImageWriter("progressiveExpected", n, n);
+        renderBuilder(expected, new CountingTracer(Integer.MAX_VALUE)).build().renderImage();
+        BufferedImage expectedImage = expected.toImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: a frame after every pass, from a ray through every 4x4 pixels to a ray through every pixel
+        CountingTracer tracer = new CountingTracer(Integer.MAX_VALUE);
+        List<BufferedImage> frames = new ArrayList<>();
+        List<Integer> rays = new ArrayList<>();
+        renderBuilder(new ImageWriter("progressive", n, n), tracer)
+                .setProgressive((frame, pass, passes) -> {
+                    assertEquals(frames.size(), pass, "TC01: wrong pass");
+                    assertEquals(3, passes, "TC01: wrong amount of passes");
+                    frames.add(frame);
+                    rays.add(tracer.rays.get());
+                }, 0).build().renderImage();
+        assertEquals(List.of(n * n / 16, n * n / 4, n * n), rays, "TC01: wrong amount of rays in the passes");
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                assertEquals(expectedImage.getRGB(j / 4 * 4, i / 4 * 4), frames.get(0).getRGB(j, i),
+                        "TC01: wrong pixel of the coarse pass");
+                assertEquals(expectedImage.getRGB(j, i), frames.get(2).getRGB(j, i), "TC01: wrong final pixel");
+            }
+
+        //TC02: extra passes cast another ray through every pixel
+        CountingTracer extra = new CountingTracer(Integer.MAX_VALUE);
+        List<Integer> passes = new ArrayList<>();
+        renderBuilder(new ImageWriter("progressive", n, n), extra)
+                .setProgressive((frame, pass, total) -> passes.add(total), 2).build().renderImage();
+        assertEquals(List.of(5, 5, 5, 5, 5), passes, "TC02: wrong amount of passes");
+        assertEquals(3 * n * n, extra.rays.get(), "TC02: wrong amount of rays");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: the amount of extra passes must not be negative
+        assertThrows(IllegalArgumentException.class,
+                () -> Camera.getBuilder().setProgressive((frame, pass, total) -> {
+                }, -1), "TC10: negative extra passes");
+    }
+
+    /**
+     * ray tracer of a vertical edge between black and white, that counts the rays
+     */
+    private static class EdgeTracer extends RayTracerBase {
+        /**
+         * the amount of traced rays
+         */
+        final AtomicInteger rays = new AtomicInteger();
+
+        /**
+         * ctor of the edge
+         */
+        EdgeTracer() {
+            super(new Scene("Edge"));
+        }
+
+        @Override
+        public Color traceRay(Ray r) {
+            rays.incrementAndGet();
+            // the edge crosses the view plane at distance 10 inside a pixel, not on its corners
+            Vector v = r.getDirection();
+            return v.getX() * 10 / -v.getZ() < -0.3 ? new Color(255, 255, 255) : Color.BLACK;
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link Camera.Builder#setAntiAliasing(int, double)}
+     */
+    @Test
+    void testAntiAliasing() {
+        final int n = 16;
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: rays through the corners are shared, and only the pixels on the edge are subdivided
+        EdgeTracer tracer = new EdgeTracer();
+        ImageWriter imageWriter = new ImageWriter("antiAliasing", n, n);
+        renderBuilder(imageWriter, tracer).setTileSize(n).setAntiAliasing(1, 16).build().renderImage();
+        assertEquals((n + 1) * (n + 1) + 5 * n, tracer.rays.get(), "TC01: wrong amount of rays");
+
+        //TC02: the pixels on the edge are blended, and the others keep their color
+        BufferedImage image = imageWriter.toImage();
+        for (int i = 0; i < n; i++) {
+            int blended = 0;
+            for (int j = 0; j < n; j++) {
+                int blue = image.getRGB(j, i) & 0xFF;
+                if (blue != 0 && blue != 255) blended++;
+            }
+            assertEquals(1, blended, "TC02: wrong amount of blended pixels in a row");
+        }
+
+        //TC03: a deeper subdivision casts more rays only on the edge
+        EdgeTracer deeper = new EdgeTracer();
+        renderBuilder(new ImageWriter("antiAliasing", n, n), deeper).setTileSize(n).setAntiAliasing(3, 16)
+                .build().renderImage();
+        assertTrue(deeper.rays.get() > tracer.rays.get(), "TC03: a deeper subdivision didn't cast more rays");
+        assertTrue(deeper.rays.get() < (n + 1) * (n + 1) + 5 * n * (1 + 4 + 16),
+                "TC03: pixels away from the edge were subdivided");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: without anti-aliasing a single ray goes through every pixel
+        EdgeTracer none = new EdgeTracer();
+        renderBuilder(new ImageWriter("antiAliasing", n, n), none).setAntiAliasing(0, 16).build().renderImage();
+        assertEquals(n * n, none.rays.get(), "TC10: wrong amount of rays");
+        //TC11: the depth and the threshold must not be negative
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setAntiAliasing(-1, 16),
+                "TC11: negative depth");
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setAntiAliasing(1, -1),
+                "TC11: negative threshold");
+    }
+
+    /**
+     * Test method for
+     * {@link Camera#renderImage()} when the calling thread is interrupted
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void testInterrupt() throws InterruptedException {
+        final int n = 40;
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: interrupting the render on the common pool stops it
+        //TC02: interrupting the render on a pool of its own stops it
+        //TC03: interrupting the render in the calling thread stops it
+        //TC04: interrupting the render on virtual threads stops it
+        int[] modes = {-1, 2, 0, -3};
+        for (int i = 0; i < modes.length; i++) {
+            SleepingTracer tracer = new SleepingTracer();
+            Camera camera = renderBuilder(new ImageWriter("interrupt", n, n), tracer)
+                    .setMultithreading(modes[i]).build();
+            Thread render = new Thread(camera::renderImage);
+            render.start();
+            tracer.started.await();
+            render.interrupt();
+            render.join();
+            assertTrue(tracer.rays.get() < n * n / 2, "TC0" + (i + 1) + ": the render was not stopped");
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link Camera#renderImageAsync()} and {@link RenderHandle#cancel()}
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void testRenderImageAsync() throws InterruptedException {
+        final int n = 40;
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: a render in the background is completed with the camera
+        CountingTracer counting = new CountingTracer(Integer.MAX_VALUE);
+        Camera camera = renderBuilder(new ImageWriter("async", n, n), counting).build();
+        assertSame(camera, camera.renderImageAsync().getFuture().join(), "TC01: wrong camera");
+        assertEquals(n * n, counting.rays.get(), "TC01: wrong amount of rays");
+
+        //TC02: a cancelled render stops, and its future is cancelled
+        SleepingTracer tracer = new SleepingTracer();
+        RenderHandle handle = renderBuilder(new ImageWriter("async", n, n), tracer).build().renderImageAsync();
+        tracer.started.await();
+        handle.cancel();
+        tracer.thread.join();
+        assertTrue(handle.isCancelled(), "TC02: the render is not cancelled");
+        assertTrue(handle.getFuture().isCancelled(), "TC02: the future is not cancelled");
+        assertTrue(tracer.rays.get() < n * n / 2, "TC02: the render was not stopped");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: the progress of a cancelled render doesn't grow
+        long rays = handle.getProgress().rays();
+        Thread.sleep(50);
+        assertEquals(rays, handle.getProgress().rays(), "TC10: the cancelled render goes on");
+    }
+
+    /**
+     * Test method for
+     * {@link Camera.Builder#setTimeBudget(long)}
+     */
+    @Test
+    void testTimeBudget() {
+        final int n = 40;
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: after the budget is over the remaining tiles get a ray for every block of pixels,
+        // and every pixel of the image is still colored
+        SleepingTracer tracer = new SleepingTracer();
+        ImageWriter imageWriter = new ImageWriter("timeBudget", n, n);
+        AtomicLong pixels = new AtomicLong();
+        renderBuilder(imageWriter, tracer).setTimeBudget(50)
+                .setProgressListener(progress -> pixels.set(progress.pixelsDone()), 1000)
+                .build().renderImage();
+        assertTrue(tracer.rays.get() < n * n / 2, "TC01: the budget was not kept");
+        assertEquals(n * n, pixels.get(), "TC01: not all the pixels were done");
+        BufferedImage image = imageWriter.toImage();
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                assertNotEquals(0, image.getRGB(j, i) & 0xFFFFFF, "TC01: a pixel was not colored");
+
+        //TC02: the ray of a block goes through its center, so blocks at both sides of the middle of the image
+        // that are mirrored by the tracer have the same color
+        int mirrored = 0;
+        for (int i = 0; i < n; i += 4)
+            for (int j = 0; j < n / 2; j += 4)
+                if (isBlock(image, j, i) && isBlock(image, n - 4 - j, i)) {
+                    assertEquals(image.getRGB(j, i), image.getRGB(n - 4 - j, i), "TC02: the ray is not in the center");
+                    mirrored++;
+                }
+        assertTrue(mirrored > 0, "TC02: no mirrored blocks");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: without a budget every pixel gets its ray
+        CountingTracer counting = new CountingTracer(Integer.MAX_VALUE);
+        renderBuilder(new ImageWriter("timeBudget", n, n), counting).build().renderImage();
+        assertEquals(n * n, counting.rays.get(), "TC10: wrong amount of rays");
+    }
+
+    /**
+     * Test method for
+     * {@link Camera#writeToImageAsync()}
+     *
+     * @param temp a temporary directory for the images
+     * @throws IOException if the temporary file can't be created
+     */
+    @Test
+    void testWriteToImageAsync(@TempDir Path temp) throws IOException {
+        final int n = 16;
+        ImageQueue queue = new ImageQueue(2);
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the future of the queue is completed when the image is written
+        ImageWriter imageWriter = new ImageWriter("async", n, n).setDirectory(temp.toString());
+        Camera camera = renderBuilder(imageWriter, new CountingTracer(Integer.MAX_VALUE))
+                .setImageQueue(queue).build();
+        camera.renderImage().writeToImageAsync().join();
+        assertTrue(Files.exists(temp.resolve("async.png")), "TC01: the image was not written");
+
+        //TC02: a failed write completes the future exceptionally
+        imageWriter.setDirectory(Files.createFile(temp.resolve("notDirectory")).toString());
+        CompletableFuture<Void> failed = camera.writeToImageAsync();
+        assertThrows(CompletionException.class, failed::join, "TC02: the failure was not reported");
+        assertThrows(IllegalStateException.class, queue::close, "TC02: the queue didn't report the failure");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: without a queue the image is written before the future is returned
+        ImageWriter sync = new ImageWriter("sync", n, n).setDirectory(temp.toString());
+        assertTrue(renderBuilder(sync, new CountingTracer(Integer.MAX_VALUE)).build()
+                .renderImage().writeToImageAsync().isDone(), "TC10: the future is not done");
+        assertTrue(Files.exists(temp.resolve("sync.png")), "TC10: the image was not written");
+    }
+
+    /**
+     * checking if a block of 4x4 pixels of an image has a single color
+     *
+     * @param image the image
+     * @param x     the column of the top left pixel of the block
+     * @param y     the row of the top left pixel of the block
+     * @return true if it has, false if not
+     */
+    private static boolean isBlock(BufferedImage image, int x, int y) {
+        for (int i = y; i < y + 4; i++)
+            for (int j = x; j < x + 4; j++)
+                if (image.getRGB(j, i) != image.getRGB(x, y)) return false;
+        return true;
+    }
+
+    /**
+     * Test method for
+     * {@link Camera.Builder#setCheckpoint(long, boolean)}
+     *
+     * @param temp a temporary directory for the images
+     * @throws IOException if the temporary file can't be created
+     */
+    @Test
+    void testCheckpoint(@TempDir Path temp) throws IOException {
+        final int n = 40;
+        ImageWriter expected = new ImageWriter("checkpointExpected", n, n);
+        Camera.Builder builder = renderBuilder(expected, new CountingTracer(Integer.MAX_VALUE));
+        builder.build().renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: a render that crashed is resumed from its checkpoint without rendering the saved tiles again
+        Camera crashed = builder.setImageWriter(new ImageWriter("checkpoint", n, n))
+                .setRayTracer(new CountingTracer(n * n / 2)).setCheckpoint(1000, false).build();
+        assertThrows(IllegalStateException.class, crashed::renderImage, "TC01: the render didn't crash");
+        ImageWriter resumed = new ImageWriter("checkpoint", n, n);
+        CountingTracer tracer = new CountingTracer(Integer.MAX_VALUE);
+        builder.setImageWriter(resumed).setRayTracer(tracer).setCheckpoint(1000, true).build().renderImage();
+        assertTrue(tracer.rays.get() <= n * n / 2 + 64, "TC01: saved tiles were rendered again");
+        BufferedImage image = resumed.toImage(), expectedImage = expected.toImage();
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                assertEquals(expectedImage.getRGB(j, i), image.getRGB(j, i), "TC01: wrong pixel");
+
+        //TC02: a checkpoint that can't be saved doesn't hide the crash of the render
+        String notDirectory = Files.createFile(temp.resolve("notDirectory")).toString();
+        Camera unsaved = builder.setImageWriter(new ImageWriter("checkpoint", n, n).setDirectory(notDirectory))
+                .setRayTracer(new CountingTracer(n * n / 2)).setCheckpoint(60_000, false).build();
+        IllegalStateException crash = assertThrows(IllegalStateException.class, unsaved::renderImage,
+                "TC02: the render didn't crash");
+        assertEquals("crash", crash.getMessage(), "TC02: the crash was replaced");
+        assertEquals(1, crash.getSuppressed().length, "TC02: the failed save was lost");
+
+        //TC03: the checkpoints during the render are saved in the background, not by the render thread
+        Set<Thread> savers = ConcurrentHashMap.newKeySet();
+        ImageWriter saved = new ImageWriter("checkpointBackground", 16, 16) {
+            @Override
+            void savePixels(File file) {
+                savers.add(Thread.currentThread());
+                super.savePixels(file);
+            }
+        }.setDirectory(temp.toString());
+        builder.setImageWriter(saved).setRayTracer(new SleepingTracer()).setCheckpoint(1, false).build().renderImage();
+        assertFalse(savers.isEmpty(), "TC03: no checkpoint was saved");
+        assertFalse(savers.contains(Thread.currentThread()), "TC03: the render thread saved a checkpoint");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: the checkpoint is deleted after the render is complete
+        tracer = new CountingTracer(Integer.MAX_VALUE);
+        builder.setImageWriter(new ImageWriter("checkpoint", n, n)).setRayTracer(tracer).build().renderImage();
+        assertEquals(n * n, tracer.rays.get(), "TC10: a complete checkpoint was resumed");
+    }
+
+    /**
+     * Test method for
+     * {@link Camera.Builder#setCrop(int, int, int, int)}
+     */
+    @Test
+    void testCrop() {
+        final int n = 40;
+        ImageWriter full = new ImageWriter("cropFull", n, n);
+        Camera.Builder builder = renderBuilder(full, new CountingTracer(Integer.MAX_VALUE));
+        builder.build().renderImage();
+        BufferedImage expected = full.toImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: only the pixels of the crop are rendered, into the former image
+        ImageWriter cropped = new ImageWriter("crop", n, n);
+        Color background = new Color(10, 20, 30);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                cropped.writePixel(j, i, background);
+        CountingTracer tracer = new CountingTracer(Integer.MAX_VALUE);
+        builder.setImageWriter(cropped).setRayTracer(tracer).setCrop(5, 10, 12, 20).build().renderImage();
+        assertEquals(12 * 20, tracer.rays.get(), "TC01: wrong amount of rays");
+        BufferedImage image = cropped.toImage();
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                boolean inside = j >= 5 && j < 17 && i >= 10 && i < 30;
+                assertEquals(inside ? expected.getRGB(j, i) : new java.awt.Color(10, 20, 30).getRGB(),
+                        image.getRGB(j, i), "TC01: wrong pixel");
+            }
+
+        // =============== Boundary Values Tests ==================
+        //TC10: a crop that is not inside the image
+        assertThrows(IllegalArgumentException.class, () -> builder.setCrop(30, 0, 11, 5).build(),
+                "TC10: crop outside the image");
+        //TC11: an empty crop
+        assertThrows(IllegalArgumentException.class, () -> builder.setCrop(0, 0, 0, 5),
+                "TC11: empty crop");
+    }
+}
@@ -0,0 +1,106 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * unit test for the background writing of the images
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class ImageQueueTest {
+    /**
+     * Default constructor for ImageQueueTest.
+     */
+    ImageQueueTest() {/*just for the javadoc*/}
+
+    /**
+     * Test method for {@link ImageQueue#submit(ImageWriter)}
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void testSubmit() throws InterruptedException {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the images are written in the background, and all of them are on the disk after the queue is closed
+        File[] files = new File[3];
+        try (ImageQueue queue = new ImageQueue(2)) {
+            for (int i = 0; i < files.length; i++) {
+                ImageWriter imageWriter = new ImageWriter("queue" + i, 20, 20);
+                imageWriter.writePixel(i, i, new Color(255, 0, 0));
+                files[i] = new File(System.getProperty("user.dir") + "/images/queue" + i + ".png");
+                files[i].delete();
+                queue.submit(imageWriter);
+            }
+        }
+        for (File file : files) assertTrue(file.exists(), "TC01: an image was not written");
+
+        //TC02: adding to a full queue waits until there is room in it
+        ImageQueue queue = new ImageQueue(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        queue.submit(() -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writing.await();
+        CompletableFuture<Void> queued = queue.submit(() -> {
+        });
+        AtomicReference<CompletableFuture<Void>> waited = new AtomicReference<>();
+        Thread blocked = new Thread(() -> waited.set(queue.submit(() -> {
+        })));
+        blocked.start();
+        while (blocked.getState() != Thread.State.TIMED_WAITING) Thread.onSpinWait();
+        assertEquals(1, queue.getPending(), "TC02: wrong amount of pending images");
+        assertFalse(queued.isDone(), "TC02: an image was written before its turn");
+
+        //TC03: closing the queue is not blocked by a producer that waits for room
+        Thread closer = new Thread(queue::close);
+        closer.start();
+        while (closer.getState() != Thread.State.WAITING) Thread.onSpinWait();
+        assertThrows(IllegalStateException.class, () -> queue.submit(() -> {
+        }), "TC03: an image was added to a closing queue");
+        release.countDown();
+        blocked.join();
+        closer.join();
+        assertTrue(queued.isDone(), "TC02: an image was not written");
+        assertTrue(waited.get().isDone() && !waited.get().isCompletedExceptionally(),
+                "TC03: the image of the waiting producer was not written");
+
+        //TC04: a failed write, even by an error, fails only its own image and is reported when the queue is closed
+        ImageQueue failing = new ImageQueue(1);
+        CompletableFuture<Void> failed = failing.submit(() -> {
+            throw new IllegalStateException("I/O error");
+        });
+        CompletableFuture<Void> error = failing.submit(() -> {
+            throw new OutOfMemoryError("no room for the image");
+        });
+        CompletableFuture<Void> after = failing.submit(() -> {
+        });
+        assertThrows(IllegalStateException.class, failing::close, "TC04: a failed write is not reported");
+        assertTrue(failed.isCompletedExceptionally(), "TC04: a failed write completed normally");
+        assertTrue(error.isCompletedExceptionally(), "TC04: a write that threw an error completed normally");
+        assertTrue(after.isDone() && !after.isCompletedExceptionally(),
+                "TC04: the image after an error was not written");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: nothing can be added to a closed queue
+        assertThrows(IllegalStateException.class, () -> queue.submit(new ImageWriter("queue", 1, 1)),
+                "TC10: an image was added to a closed queue");
+
+        //TC11: a queue must have room for an image
+        assertThrows(IllegalArgumentException.class, () -> new ImageQueue(0), "TC11: a queue without room");
+    }
+}
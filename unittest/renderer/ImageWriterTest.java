@@ -1,8 +1,27 @@
 package renderer;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import primitives.Color;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 /**
  * test for imageWriter
  */
@@ -33,4 +52,278 @@ class ImageWriterTest {
         }
         imageWriter.writeToImage();
     }
-}
\ No newline at end of file
+
+    /**
+     * test method for
+     * {@link ImageWriter#toImage()}
+     */
+    @Test
+    void toImage() {
+        ImageWriter imageWriter = new ImageWriter("toImage", 3, 2);
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the image has the written pixels, limited to 255
+        imageWriter.writePixel(2, 1, new Color(10, 300, 128.7));
+        imageWriter.writePixel(0, 0, new Color(255, 0, 0));
+        BufferedImage image = imageWriter.toImage();
+        assertEquals(new java.awt.Color(10, 255, 128).getRGB(), image.getRGB(2, 1), "TC01: wrong pixel");
+        assertEquals(java.awt.Color.RED.getRGB(), image.getRGB(0, 0), "TC01: wrong pixel");
+        assertEquals(java.awt.Color.BLACK.getRGB(), image.getRGB(1, 0), "TC01: pixel not black");
+
+        //TC02: the image is a copy that doesn't change with the writer
+        imageWriter.writePixel(0, 0, new Color(0, 0, 255));
+        assertEquals(java.awt.Color.RED.getRGB(), image.getRGB(0, 0), "TC02: the image changed");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: a pixel out of the row is not written to the next row
+        assertThrows(IndexOutOfBoundsException.class, () -> imageWriter.writePixel(3, 0, Color.BLACK),
+                "TC10: pixel out of bounds was written");
+    }
+
+    /**
+     * test method for
+     * {@link ImageWriter#setToneMapper(ToneMapper)}
+     */
+    @Test
+    void toneMapping() {
+        ImageWriter imageWriter = new ImageWriter("toneMapping", 2, 1);
+        imageWriter.writePixel(0, 0, new Color(100, 255, 1000));
+        imageWriter.writePixel(1, 0, new Color(50, 50, 50));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: reinhard keeps the order of the bright components that clamp cuts
+        BufferedImage image = imageWriter.setToneMapper(ToneMapper.reinhard(1000)).toImage();
+        java.awt.Color pixel = new java.awt.Color(image.getRGB(0, 0));
+        assertTrue(pixel.getRed() < pixel.getGreen() && pixel.getGreen() < pixel.getBlue(),
+                "TC01: reinhard lost the order of the components");
+        assertEquals(255, pixel.getBlue(), "TC01: white is not mapped to 255");
+
+        //TC02: one stop of exposure doubles the dark pixels
+        image = imageWriter.setToneMapper(ToneMapper.CLAMP.withExposure(1)).toImage();
+        assertEquals(new java.awt.Color(100, 100, 100).getRGB(), image.getRGB(1, 0), "TC02: wrong exposure");
+    }
+
+    /**
+     * test method for
+     * {@link ImageWriter#writeToPfm()} and {@link ImageWriter#readPfm(String)}
+     */
+    @Test
+    void pfm() {
+        ImageWriter imageWriter = new ImageWriter("pfmTest", 3, 2);
+        imageWriter.writePixel(0, 0, new Color(1000, 0, 0));
+        imageWriter.writePixel(2, 1, new Color(0, 12.5, 255));
+        imageWriter.writeToPfm();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the image read from the file keeps the components above 255
+        ImageWriter read = ImageWriter.readPfm("pfmTest");
+        assertEquals(3, read.getNx(), "TC01: wrong width");
+        assertEquals(2, read.getNy(), "TC01: wrong height");
+        BufferedImage image = read.setToneMapper(ToneMapper.CLAMP.withExposure(-2)).toImage();
+        assertEquals(new java.awt.Color(250, 0, 0).getRGB(), image.getRGB(0, 0), "TC01: wrong pixel");
+        assertEquals(new java.awt.Color(0, 3, 63).getRGB(), image.getRGB(2, 1), "TC01: wrong pixel");
+        assertEquals(java.awt.Color.BLACK.getRGB(), image.getRGB(1, 0), "TC01: pixel not black");
+    }
+
+    /**
+     * test method for
+     * {@link ImageWriter#mapped(String, int, int)}
+     */
+    @Test
+    void mapped() {
+        ImageWriter heap = new ImageWriter("mappedTest", 4, 3);
+        ImageWriter mapped = ImageWriter.mapped("mappedTest", 4, 3);
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 4; j++) {
+                Color color = new Color(j * 100, i * 50, 10);
+                heap.writePixel(j, i, color);
+                mapped.writePixel(j, i, color);
+            }
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the mapped image is the same as the image on the heap
+        BufferedImage expected = heap.toImage();
+        BufferedImage image = mapped.toImage();
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 4; j++)
+                assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC01: wrong pixel");
+
+        //TC02: the file of the mapped image is a pfm file with the pixels
+        mapped.writeToPfm();
+        image = ImageWriter.readPfm("mappedTest").toImage();
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 4; j++)
+                assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC02: wrong pixel");
+    }
+
+    /**
+     * test method for
+     * {@link ImageWriter#writeToImage()}, {@link ImageWriter#setStreaming(boolean)} and {@link ImageWriter#readPng(String)}
+     *
+     * @throws IOException if the png can't be read
+     */
+    @Test
+    void png() throws IOException {
+        // an image whose height is not a whole amount of bands, with noise that uses all the filters
+        final int nX = 150, nY = 130, tile = 10;
+        Random random = new Random(5);
+        ImageWriter batch = new ImageWriter("pngBatch", nX, nY);
+        ImageWriter streamed = new ImageWriter("pngStreamed", nX, nY).setStreaming(true);
+        List<int[]> tiles = new ArrayList<>();
+        for (int y = 0; y < nY; y += tile)
+            for (int x = 0; x < nX; x += tile)
+                tiles.add(new int[]{x, y});
+        Collections.shuffle(tiles, random);
+        for (int[] t : tiles) {
+            for (int i = t[1]; i < t[1] + tile; i++)
+                for (int j = t[0]; j < t[0] + tile; j++) {
+                    Color color = new Color(j + i, random.nextInt(256), i % 3 * 100);
+                    batch.writePixel(j, i, color);
+                    streamed.writePixel(j, i, color);
+                }
+            streamed.tileDone(t[0], t[1], tile, tile);
+        }
+        batch.writeToImage();
+        streamed.writeToImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the png has the pixels of the image
+        BufferedImage expected = batch.toImage();
+        BufferedImage image = ImageIO.read(new File("images/pngBatch.png"));
+        for (int i = 0; i < nY; i++)
+            for (int j = 0; j < nX; j++)
+                assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC01: wrong pixel");
+
+        //TC02: the png that was encoded while the tiles were written has the same pixels
+        image = ImageIO.read(new File("images/pngStreamed.png"));
+        for (int i = 0; i < nY; i++)
+            for (int j = 0; j < nX; j++)
+                assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC02: wrong pixel");
+
+        //TC03: the png is read back with the same pixels
+        image = ImageWriter.readPng("pngBatch").toImage();
+        for (int i = 0; i < nY; i++)
+            for (int j = 0; j < nX; j++)
+                assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC03: wrong pixel");
+
+        //TC04: the bands are encoded by the threads of the encoder, not by the common pool of the renders
+        Set<Thread> encoders = ConcurrentHashMap.newKeySet();
+        PngEncoder.encode(new ByteArrayOutputStream(), nX, nY, (y, row) -> encoders.add(Thread.currentThread()));
+        assertFalse(encoders.isEmpty(), "TC04: no band was encoded");
+        for (Thread encoder : encoders)
+            assertTrue(encoder.getName().startsWith("png-encoder-"), "TC04: a band was encoded by " + encoder);
+    }
+
+    /**
+     * test method for
+     * {@link ImageWriter#setFormat(String)} and {@link ImageWriter#setDirectory(String)}
+     *
+     * @param temp a temporary directory for the images
+     * @throws IOException if the images can't be read
+     */
+    @Test
+    void formats(@TempDir Path temp) throws IOException {
+        File directory = temp.resolve("formats").toFile();
+        ImageWriter imageWriter = new ImageWriter("formats", 5, 3).setDirectory(directory.getPath());
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 5; j++)
+                imageWriter.writePixel(j, i, new Color(j * 50, i * 100, 300));
+        BufferedImage expected = imageWriter.toImage();
+        byte[] raw = new byte[5 * 3 * 3];
+        for (int i = 0, p = 0; i < 3; i++)
+            for (int j = 0; j < 5; j++, p += 3) {
+                raw[p] = (byte) (j * 50);
+                raw[p + 1] = (byte) (i * 100);
+                raw[p + 2] = (byte) 255;
+            }
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: a bitmap is written to a directory that didn't exist, and has the pixels
+        imageWriter.setFormat("bmp").writeToImage();
+        BufferedImage image = ImageIO.read(new File(directory, "formats.bmp"));
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 5; j++)
+                assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC01: wrong pixel");
+
+        //TC02: a pixmap has a header and the pixels
+        imageWriter.setFormat("ppm").writeToImage();
+        byte[] header = "P6\n5 3\n255\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] ppm = Files.readAllBytes(new File(directory, "formats.ppm").toPath());
+        assertArrayEquals(header, Arrays.copyOf(ppm, header.length), "TC02: wrong header");
+        assertArrayEquals(raw, Arrays.copyOfRange(ppm, header.length, ppm.length), "TC02: wrong pixels");
+
+        //TC03: a raw image written to a stream has only the pixels
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        imageWriter.setFormat("raw").writeToImage(out);
+        assertArrayEquals(raw, out.toByteArray(), "TC03: wrong pixels");
+
+        //TC04: a registered format can be chosen by its extension
+        ImageWriter.registerFormat("size", (stream, width, height, rows) -> stream.write(width * height));
+        try {
+            out.reset();
+            imageWriter.setFormat("size").writeToImage(out);
+            assertArrayEquals(new byte[]{15}, out.toByteArray(), "TC04: the registered format was not used");
+        } finally {
+            ImageWriter.unregisterFormat("size");
+        }
+
+        //TC05: a png is read back from the directory it was written to
+        imageWriter.setFormat("png").writeToImage();
+        image = ImageWriter.readPng(directory.getPath(), "formats").toImage();
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 5; j++)
+                assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC05: wrong pixel");
+
+        //TC06: a memory mapped image is kept in the directory, and read back from it
+        ImageWriter mapped = ImageWriter.mapped(directory.getPath(), "formatsMapped", 5, 3);
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 5; j++)
+                mapped.writePixel(j, i, new Color(j * 50, i * 100, 300));
+        mapped.writeToPfm();
+        assertTrue(new File(directory, "formatsMapped.pfm").exists(), "TC06: the pfm is not in the directory");
+        image = ImageWriter.readPfm(directory.getPath(), "formatsMapped").toImage();
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 5; j++)
+                assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC06: wrong pixel");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: an unknown format can't be chosen
+        assertThrows(IllegalArgumentException.class, () -> imageWriter.setFormat("gif"), "TC10: unknown format");
+
+        //TC11: an unregistered format can't be chosen
+        assertThrows(IllegalArgumentException.class, () -> imageWriter.setFormat("size"),
+                "TC11: the unregistered format was chosen");
+    }
+
+    /**
+     * test method for
+     * {@link ImageWriter#setStreaming(boolean)} when a band is done before the band above it
+     *
+     * @throws IOException if the png can't be read
+     */
+    @Test
+    void streamingBandOrder() throws IOException {
+        final int nX = 100, nY = 200;
+        Random random = new Random(11);
+        ImageWriter imageWriter = new ImageWriter("pngBandOrder", nX, nY).setStreaming(true);
+        // the bands of 64 rows are done from the bottom up, the background encoding is waited for after each one
+        int[] bandStarts = {192, 128, 64, 0};
+        for (int start : bandStarts) {
+            int end = Math.min(nY, start + PngEncoder.BAND_ROWS);
+            for (int i = start; i < end; i++)
+                for (int j = 0; j < nX; j++)
+                    imageWriter.writePixel(j, i, new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            imageWriter.tileDone(0, start, nX, end - start);
+            while (PngEncoder.ENCODERS.getCompletedTaskCount() < PngEncoder.ENCODERS.getTaskCount())
+                Thread.onSpinWait();
+        }
+        imageWriter.writeToImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the streamed png has the pixels of the image, although the row above a band was written after it
+        BufferedImage expected = imageWriter.toImage();
+        BufferedImage image = ImageIO.read(new File("images/pngBandOrder.png"));
+        for (int i = 0; i < nY; i++)
+            for (int j = 0; j < nX; j++)
+                assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC01: wrong pixel");
+    }
+}
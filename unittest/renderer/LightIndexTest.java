@@ -0,0 +1,91 @@
+package renderer;
+
+import lighting.DirectionalLight;
+import lighting.LightSource;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * unit test for the culling of the lights
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class LightIndexTest {
+    /**
+     * Default constructor for LightIndexTest.
+     */
+    LightIndexTest() {/*just for the javadoc*/}
+
+    /**
+     * Test method for {@link LightSource#affects(Point)}
+     */
+    @Test
+    void testAffects() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the influence of a point light ends where its intensity is under the cutoff
+        PointLight point = new PointLight(new Color(100, 50, 50), Point.ZERO).setKq(1).setCutoff(1);
+        assertEquals(Math.sqrt(99), point.getInfluenceRadius(), 1e-10, "TC01: wrong influence radius");
+        assertTrue(point.affects(new Point(9.9, 0, 0)), "TC01: a near point is culled");
+        assertFalse(point.affects(new Point(10, 0, 0)), "TC01: a far point is not culled");
+
+        //TC02: a spotlight doesn't affect points behind it
+        SpotLight spot = new SpotLight(new Color(100, 100, 100), Point.ZERO, new Vector(1, 0, 0));
+        assertTrue(spot.affects(new Point(1, 5, 0)), "TC02: a point in front of the spotlight is culled");
+        assertFalse(spot.affects(new Point(-1, 5, 0)), "TC02: a point behind the spotlight is not culled");
+
+        //TC03: with a cutoff, a narrow spotlight doesn't affect points on its sides
+        spot.setNarrowBeam(10).setCutoff(1);
+        assertTrue(spot.affects(new Point(1, 0.1, 0)), "TC03: a point in the cone is culled");
+        assertFalse(spot.affects(new Point(1, 2, 0)), "TC03: a point out of the cone is not culled");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: without a cutoff, a point light affects everything
+        assertTrue(new PointLight(new Color(100, 100, 100), Point.ZERO).setKq(1).affects(new Point(1e6, 0, 0)),
+                "TC10: a point light without a cutoff culls points");
+    }
+
+    /**
+     * Test method for {@link LightIndex#lightsAt(Point)}
+     */
+    @Test
+    void testLightsAt() {
+        LightSource sun = new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1));
+        List<LightSource> lamps = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            lamps.add(new PointLight(new Color(100, 100, 100), new Point(i * 10, 0, 0)).setKq(1).setCutoff(1));
+        List<LightSource> lights = new ArrayList<>(lamps);
+        lights.add(50, sun);
+        LightIndex index = new LightIndex(lights);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: a point gets the lights that affect it, in the order of the scene, and only a few others
+        Point p = new Point(503, 2, 0);
+        LightSource[] found = index.lightsAt(p);
+        List<LightSource> list = List.of(found);
+        for (LightSource light : lights)
+            if (light.affects(p)) assertTrue(list.contains(light), "TC01: a light is missing");
+        assertTrue(list.contains(sun), "TC01: the directional light is missing");
+        for (int i = 1; i < found.length; i++)
+            assertTrue(lights.indexOf(found[i - 1]) < lights.indexOf(found[i]), "TC01: wrong order");
+        assertTrue(found.length < 10, "TC01: too many lights");
+
+        //TC02: a point out of the influence of all the point lights gets only the directional light
+        assertArrayEquals(new LightSource[]{sun}, index.lightsAt(new Point(0, 1000, 0)), "TC02: wrong lights");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: without bounded lights, every point gets all the lights
+        List<LightSource> unbounded = List.of(sun, new PointLight(new Color(1, 1, 1), Point.ZERO));
+        assertArrayEquals(unbounded.toArray(), new LightIndex(unbounded).lightsAt(new Point(5, 5, 5)),
+                "TC10: wrong lights");
+    }
+}
@@ -0,0 +1,181 @@
+package renderer;
+
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * unit test for the distributed render over local sockets
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class RenderCoordinatorTest {
+    /**
+     * Default constructor for RenderCoordinatorTest.
+     */
+    RenderCoordinatorTest() {/*just for the javadoc*/}
+
+    /**
+     * the width of the image
+     */
+    private static final int NX = 60;
+    /**
+     * the height of the image
+     */
+    private static final int NY = 40;
+
+    /**
+     * the classes of the tracer factory of the tests, that the workers may deserialize
+     */
+    private static final String FACTORY_CLASSES = "renderer.RenderCoordinatorTest*";
+
+    /**
+     * creates the scene of the tests
+     *
+     * @return the scene
+     */
+    private static Scene createScene() {
+        Scene scene = new Scene("distributed").setAmbientLight(new AmbientLight(new Color(30, 30, 30), 0.2));
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, -200), 60d).setEmission(new Color(0, 0, 100))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)),
+                new Triangle(new Point(-150, -150, -300), new Point(150, -150, -300), new Point(0, 150, -300))
+                        .setEmission(new Color(60, 20, 20)).setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new SpotLight(new Color(400, 240, 0), new Point(-100, -100, 200), new Vector(1, 1, -3))
+                .setKl(1E-5).setKq(1.5E-7));
+        return scene;
+    }
+
+    /**
+     * creates a camera of the tests
+     *
+     * @param imageWriter the image writer
+     * @param scene       the scene
+     * @return the camera
+     */
+    private static Camera createCamera(ImageWriter imageWriter, Scene scene) {
+        return Camera.getBuilder()
+                .setDirection(Point.ZERO, Vector.Y)
+                .setLocation(new Point(0, 0, 1000)).setVpDistance(1000)
+                .setVpSize(300, 200).setTileSize(8)
+                .setImageWriter(imageWriter)
+                .setRayTracer(new SimpleRayTracer(scene))
+                .build();
+    }
+
+    /**
+     * Test method for {@link RenderCoordinator#render()}
+     *
+     * @throws IOException          if the dead worker can't connect
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void testRender() throws IOException, InterruptedException {
+        Scene scene = createScene();
+        ImageWriter local = new ImageWriter("distributedLocal", NX, NY);
+        createCamera(local, scene).renderImage();
+        BufferedImage expected = local.toImage();
+
+        ImageWriter distributed = new ImageWriter("distributed", NX, NY);
+        try (RenderCoordinator coordinator = new RenderCoordinator(createCamera(distributed, scene), scene,
+                SimpleRayTracer::new, 0).setRegionTiles(1)) {
+            // a worker that dies after it gets its first rectangle, connected before the others
+            Socket dead = new Socket("localhost", coordinator.getPort());
+            Thread deadWorker = new Thread(() -> {
+                try (dead) {
+                    DataInputStream in = new DataInputStream(dead.getInputStream());
+                    in.readFully(new byte[in.readInt()]);
+                    for (int i = 0; i < 4; i++) in.readInt();
+                } catch (IOException ignore) {
+                    // the test fails on the amount of redispatched rectangles
+                }
+            });
+            deadWorker.start();
+            AtomicInteger rendered = new AtomicInteger();
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < 2; i++)
+                workers.add(Thread.ofPlatform().start(() -> rendered.addAndGet(
+                        new RenderWorker("localhost", coordinator.getPort()).setAllowedClasses(FACTORY_CLASSES).run())));
+            coordinator.render();
+            for (Thread worker : workers) worker.join();
+            deadWorker.join();
+
+            // ============ Equivalence Partitions Tests ==============
+            //TC01: the image rendered by the workers is the same as the image rendered locally
+            BufferedImage image = distributed.toImage();
+            for (int i = 0; i < NY; i++)
+                for (int j = 0; j < NX; j++)
+                    assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC01: wrong pixel");
+            assertEquals(8 * 5, rendered.get(), "TC01: wrong amount of rectangles");
+
+            //TC02: the rectangle of the dead worker was rendered by another worker
+            assertEquals(1, coordinator.getRedispatched(), "TC02: the rectangle of the dead worker was lost");
+
+            //TC03: rendering a rectangle doesn't change the camera it is rendered with
+            Camera camera = createCamera(distributed, scene);
+            camera.renderRegion(new SimpleRayTracer(new Scene("empty")), NX, NY, new Tile(0, 0, 8, 8));
+            assertSame(distributed, camera.getImageWriter(), "TC03: the image writer of the camera was replaced");
+            camera.renderImage();
+            image = distributed.toImage();
+            for (int i = 0; i < NY; i++)
+                for (int j = 0; j < NX; j++)
+                    assertEquals(expected.getRGB(j, i), image.getRGB(j, i), "TC03: wrong pixel");
+
+            // =============== Boundary Values Tests ==================
+            //TC10: the image is rendered only once
+            assertThrows(IllegalStateException.class, coordinator::render, "TC10: the image was rendered twice");
+        }
+
+        //TC11: a render without workers fails instead of waiting forever
+        try (RenderCoordinator idle = new RenderCoordinator(createCamera(new ImageWriter("distributedIdle", NX, NY),
+                scene), scene, SimpleRayTracer::new, 0).setWorkerTimeout(300)) {
+            assertThrows(IllegalStateException.class, idle::render, "TC11: the render waited without workers");
+        }
+    }
+
+    /**
+     * Test method for {@link RenderWorker#setAllowedClasses(String)}
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void testAllowedClasses() throws InterruptedException {
+        Scene scene = createScene();
+        try (RenderCoordinator coordinator = new RenderCoordinator(
+                createCamera(new ImageWriter("distributedAllowed", NX, NY), scene), scene,
+                SimpleRayTracer::new, 0).setRegionTiles(8)) {
+            Thread render = Thread.ofPlatform().start(coordinator::render);
+
+            // ============ Equivalence Partitions Tests ==============
+            //TC01: a job with a class that is not allowed is not deserialized
+            RenderWorker rejecting = new RenderWorker("localhost", coordinator.getPort());
+            assertThrows(IllegalStateException.class, rejecting::run, "TC01: a class that is not allowed was read");
+
+            //TC02: a job with allowed classes is rendered
+            assertEquals(1, new RenderWorker("localhost", coordinator.getPort())
+                    .setAllowedClasses(FACTORY_CLASSES).run(), "TC02: the job was not rendered");
+            render.join();
+        }
+
+        // =============== Boundary Values Tests ==================
+        //TC10: rejecting classes is only done by the worker
+        assertThrows(IllegalArgumentException.class,
+                () -> new RenderWorker("localhost", 0).setAllowedClasses("!geometries.*"),
+                "TC10: classes were rejected");
+    }
+}
@@ -0,0 +1,64 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * unit test for the samplers of the black board
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class SamplerTest {
+    /**
+     * all the samplers to test
+     */
+    private final List<Sampler> samplers =
+            List.of(new RandomSampler(), new HaltonSampler(), new SobolSampler(), new BlueNoiseSampler());
+
+    /**
+     * Default constructor for SamplerTest.
+     */
+    SamplerTest() {/*just for the javadoc*/}
+
+    /**
+     * Test method for {@link Sampler#next(int, double[], double[])}
+     */
+    @Test
+    void testNext() {
+        final int n = 6;
+        for (Sampler sampler : samplers) {
+            String name = sampler.getClass().getSimpleName();
+            double[] xs = new double[n * n], ys = new double[n * n];
+            double[] xs2 = new double[n * n], ys2 = new double[n * n];
+
+            // ============ Equivalence Partitions Tests ==============
+            //TC01: all the samples are in the unit square, and every quarter of it has samples
+            sampler.seed(7);
+            sampler.next(n, xs, ys);
+            int[] quarters = new int[4];
+            for (int i = 0; i < n * n; i++) {
+                assertTrue(xs[i] >= 0 && xs[i] < 1 && ys[i] >= 0 && ys[i] < 1,
+                        "TC01: " + name + " sample is outside the unit square");
+                quarters[(xs[i] < 0.5 ? 0 : 1) + (ys[i] < 0.5 ? 0 : 2)]++;
+            }
+            for (int quarter : quarters)
+                assertTrue(quarter >= n * n / 8, "TC01: " + name + " samples are clumped");
+
+            //TC02: the same seed gives the same samples
+            sampler.seed(7);
+            sampler.next(n, xs2, ys2);
+            assertArrayEquals(xs, xs2, "TC02: " + name + " is not reproducible");
+            assertArrayEquals(ys, ys2, "TC02: " + name + " is not reproducible");
+
+            //TC03: another seed gives other samples
+            sampler.seed(8);
+            sampler.next(n, xs2, ys2);
+            assertFalse(Arrays.equals(xs, xs2), "TC03: " + name + " ignores the seed");
+        }
+    }
+}
@@ -8,7 +8,12 @@ import org.junit.jupiter.api.Test;
 import primitives.*;
 import scene.Scene;
 
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static java.awt.Color.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Testing basic shadows
@@ -140,10 +145,23 @@ public class ShadowTests {
     }
 
     /**
-     * test method for soft shadows
+     * the left column of the part of the soft shadow image that is compared with a reference
      */
-    @Test
-    public void softShadowsTest() {
+    private static final int CROP_X = 150;
+    /**
+     * the top row of the part of the soft shadow image that is compared with a reference
+     */
+    private static final int CROP_Y = 300;
+    /**
+     * the width and height of the part of the soft shadow image that is compared with a reference
+     */
+    private static final int CROP_SIZE = 100;
+
+    /**
+     * Helper function that builds the scene of the soft shadow tests
+     * and points the camera at it
+     */
+    private void softShadowsHelper() {
         // Adding a plane and other geometries to the scene
         scene.geometries.add(
                 // Large reflective floor
@@ -187,12 +205,104 @@ public class ShadowTests {
         camera.setLocation(new Point(100, 100, 1700))
                 .setVpDistance(2200)
                 .setVpSize(500, 500)
-                .setDirection(Point.ZERO, new Vector(0, 1, -1 / 17d))
-                .setImageWriter(new ImageWriter("softShadow", 1024, 1024))
+                .setDirection(Point.ZERO, new Vector(0, 1, -1 / 17d));
+    }
+
+    /**
+     * test method for soft shadows
+     */
+    @Test
+    public void softShadowsTest() {
+        softShadowsHelper();
+        camera.setImageWriter(new ImageWriter("softShadow", 1024, 1024))
                 .setRayTracer(new RegularGrid(scene, new BlackBoard()))
                 .build()
                 .renderImage()
                 .writeToImage();
     }
+
+    /**
+     * test method for adaptive soft shadows - the full beam is cast only where the rim of the light
+     * is partly blocked, so there are fewer shadow rays and the image is about the same as with the full beams
+     */
+    @Test
+    public void softShadowsAdaptiveTest() {
+        softShadowsHelper();
+        BlackBoard grid = new BlackBoard().setStatistics(true);
+        BlackBoard adaptive = new BlackBoard().setAdaptive(true).setStatistics(true);
+        ImageWriter expected = new ImageWriter("softShadowGrid", 256, 256);
+        ImageWriter image = new ImageWriter("softShadowAdaptive", 256, 256);
+        camera.setImageWriter(expected).setRayTracer(new RegularGrid(scene, grid)).build().renderImage();
+        camera.setImageWriter(image).setRayTracer(new RegularGrid(scene, adaptive)).build()
+                .renderImage()
+                .writeToImage();
+        assertTrue(adaptive.getAverageRaysPerPoint() < 0.75 * grid.getAverageRaysPerPoint(),
+                "the adaptive beams don't save shadow rays");
+        assertTrue(averageDifference(expected.toImage(), image.toImage()) < 1.5,
+                "the adaptive beams changed the image");
+    }
+
+    /**
+     * the average difference between the color components of two images of the same size
+     *
+     * @param expected the first image
+     * @param image    the second image
+     * @return the average difference, from 0 to 255
+     */
+    private static double averageDifference(BufferedImage expected, BufferedImage image) {
+        long sum = 0;
+        for (int i = 0; i < image.getHeight(); i++)
+            for (int j = 0; j < image.getWidth(); j++) {
+                int a = expected.getRGB(j, i), b = image.getRGB(j, i);
+                for (int shift = 0; shift < 24; shift += 8)
+                    sum += Math.abs((a >> shift & 0xFF) - (b >> shift & 0xFF));
+            }
+        return sum / (3d * image.getWidth() * image.getHeight());
+    }
+
+    /**
+     * test method for soft shadows with few shadow rays, and more rays from the camera
+     * only through the noisy pixels
+     */
+    @Test
+    public void softShadowsAdaptiveSamplingTest() {
+        softShadowsHelper();
+        ImageWriter sampleMap = new ImageWriter("softShadowSampleMap", 500, 500);
+        ImageWriter image = new ImageWriter("softShadowAdaptiveSampling", 500, 500);
+        AtomicLong rays = new AtomicLong();
+        camera.setImageWriter(image)
+                .setRayTracer(new RegularGrid(scene, new BlackBoard(3).setSampler(new SobolSampler())))
+                .setAdaptiveSampling(4, 32, 1.5)
+                .setSampleMap(sampleMap)
+                .setProgressListener(progress -> rays.set(progress.rays()), 1000)
+                .build()
+                .renderImage()
+                .writeToImage();
+        sampleMap.writeToImage();
+        long adaptiveRays = rays.get();
+
+        // a part of the image around the shadows, rendered with the maximal amount of rays in every pixel
+        ImageWriter reference = new ImageWriter("softShadowAdaptiveSamplingReference", 500, 500);
+        camera.setImageWriter(reference)
+                .setAdaptiveSampling(32, 32, 0)
+                .setSampleMap(null)
+                .setCrop(CROP_X, CROP_Y, CROP_SIZE, CROP_SIZE)
+                .build()
+                .renderImage();
+
+        // the sampler stops at the minimal amount of rays in smooth regions, like the background,
+        // and casts the maximal amount only in some pixels
+        BufferedImage map = sampleMap.toImage();
+        assertTrue(adaptiveRays < 500 * 500 * 32 / 4, "the sampler didn't stop early");
+        assertEquals(4 * 255 / 32, map.getRGB(250, 50) & 0xFF, 1, "the sampler didn't stop in a smooth region");
+        int most = 0;
+        for (int i = 0; i < 500; i++)
+            for (int j = 0; j < 500; j++)
+                most = Math.max(most, map.getRGB(j, i) & 0xFF);
+        assertEquals(255, most, "the sampler didn't cast more rays in the noisy pixels");
+        assertTrue(averageDifference(reference.toImage().getSubimage(CROP_X, CROP_Y, CROP_SIZE, CROP_SIZE),
+                        image.toImage().getSubimage(CROP_X, CROP_Y, CROP_SIZE, CROP_SIZE)) < 1.5,
+                "the adaptive sampling changed the image");
+    }
 }
 
@@ -1,12 +1,14 @@
 package renderer;
 
+import geometries.Plane;
 import geometries.Sphere;
 import lighting.AmbientLight;
+import lighting.PointLight;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 import scene.Scene;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * tests for SimpleRayTracer class
@@ -41,4 +43,155 @@ class SimpleRayTracerTest {
         assertEquals(backgroundColor, smpRayTracer.traceRay(ray2), "wrong color");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * test method for
+     * {@link SimpleRayTracer#prepare()}
+     */
+    @Test
+    void prepare() {
+        Scene scene = new Scene("testPrepare");
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(new Material().setKd(0.5)));
+        SimpleRayTracer tracer = new SimpleRayTracer(scene);
+        Ray near = new Ray(new Point(1, 1, 50), new Vector(0, 0, -1));
+        Ray far = new Ray(new Point(1000, 0, 50), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: a light added after the ray tracer was created lights the points in its influence
+        PointLight light = new PointLight(new Color(400, 400, 400), new Point(0, 0, 10)).setKl(1).setCutoff(1);
+        scene.lights.add(light);
+        assertNotEquals(Color.BLACK, tracer.traceRay(near), "TC01: the added light is missing");
+        assertEquals(Color.BLACK, tracer.traceRay(far), "TC01: a point outside the influence is lit");
+
+        //TC02: after the influence of a light grew, the ray tracer that is prepared again sees it
+        light.setCutoff(0.01);
+        tracer.prepare();
+        assertNotEquals(Color.BLACK, tracer.traceRay(far), "TC02: the grown influence is missing");
+    }
+
+    /**
+     * test method for
+     * {@link SimpleRayTracer#setMaxLevel(int)}, {@link SimpleRayTracer#setMinK(double)}
+     * and {@link SimpleRayTracer#setRussianRoulette(double)}
+     */
+    @Test
+    void pathPruning() {
+        // a ray bouncing between two parallel mirrors that reflect half of the light
+        Scene scene = new Scene("testPathPruning");
+        Material mirror = new Material().setKr(0.5);
+        scene.geometries.add(new Plane(new Point(0, 0, 10), new Vector(0, 0, -1))
+                        .setEmission(new Color(100, 100, 100)).setMaterial(mirror),
+                new Plane(new Point(0, 0, -10), new Vector(0, 0, 1))
+                        .setEmission(new Color(100, 100, 100)).setMaterial(mirror));
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the path stops at the max level
+        SimpleRayTracer tracer = new SimpleRayTracer(scene).setMaxLevel(3);
+        tracer.traceRay(ray);
+        assertArrayEquals(new long[]{1, 1, 1}, tracer.getDepthHistogram(), "TC01: wrong depths");
+
+        //TC02: the path stops when its factor is under the min k
+        tracer = new SimpleRayTracer(scene).setMinK(0.2);
+        tracer.traceRay(ray);
+        assertArrayEquals(new long[]{1, 1, 1, 0, 0, 0, 0, 0, 0, 0}, tracer.getDepthHistogram(),
+                "TC02: wrong depths");
+
+        //TC03: the russian roulette stops paths, but keeps the average color
+        double expected = new SimpleRayTracer(scene).traceRay(ray).getColor().getRed();
+        tracer = new SimpleRayTracer(scene).setRussianRoulette(0.3);
+        double sum = 0;
+        final int paths = 2000;
+        for (int i = 0; i < paths; i++) {
+            tracer.seed(i);
+            sum += tracer.traceRay(ray).getColor().getRed();
+        }
+        assertTrue(tracer.getRouletteStops() > 0, "TC03: the roulette didn't stop any path");
+        assertEquals(expected, sum / paths, expected * 0.05, "TC03: the roulette changed the average color");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: max level 1 has no reflection at all
+        assertEquals(new Color(100, 100, 100), new SimpleRayTracer(scene).setMaxLevel(1).traceRay(ray),
+                "TC10: wrong color");
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(scene).setMaxLevel(0),
+                "TC10: max level 0 is allowed");
+    }
+
+    /**
+     * test method for
+     * {@link SimpleRayTracer#setLightSampling(int)}
+     */
+    @Test
+    void lightSampling() {
+        // a floor lit by many lights of different intensities
+        Scene scene = new Scene("testLightSampling");
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1))
+                .setMaterial(new Material().setKd(0.5).setKs(0.3).setShininess(10)));
+        for (int i = 0; i < 40; i++)
+            scene.lights.add(new PointLight(new Color(i * 10, 200, 400 - i * 10),
+                    new Point(i % 8 * 10 - 40, i / 8 * 10 - 20, 5 + i % 3)).setKq(0.05));
+        Ray ray = new Ray(new Point(0, 0, 50), new Vector(1, 1, -20));
+        Color expected = new SimpleRayTracer(scene).traceRay(ray);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: a few sampled lights give the color of all the lights on average
+        SimpleRayTracer tracer = new SimpleRayTracer(scene).setLightSampling(4);
+        Color sum = Color.BLACK;
+        final int points = 2000;
+        for (int i = 0; i < points; i++) {
+            tracer.seed(i);
+            sum = sum.add(tracer.traceRay(ray));
+        }
+        Color average = sum.reduce(points);
+        assertEquals(0, expected.difference(average), expected.luminance() * 0.03,
+                "TC01: the light sampling changed the average color");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: sampling as many lights as there are gives the exact color
+        assertEquals(expected, new SimpleRayTracer(scene).setLightSampling(40).traceRay(ray), "TC10: wrong color");
+    }
+
+    /**
+     * test method for
+     * {@link SimpleRayTracer#getOccluderHits()}
+     */
+    @Test
+    void occluderCache() {
+        // a floor in the shadow of a sphere
+        Scene scene = new Scene("testOccluderCache");
+        Material material = new Material().setKd(0.5);
+        Sphere sphere = new Sphere(new Point(0, 0, 10), 5);
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(material),
+                sphere.setMaterial(material));
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, 30)));
+        SimpleRayTracer tracer = new SimpleRayTracer(scene);
+        Point camera = new Point(0, -50, 50);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the first shadow ray goes over the scene and the next one hits the cached occluder
+        Color shadow = tracer.traceRay(new Ray(camera, new Point(0, 0, 0).subtract(camera)));
+        assertEquals(0, tracer.getOccluderHits(), "TC01: the first shadow ray hit the cache");
+        assertEquals(shadow, tracer.traceRay(new Ray(camera, new Point(0.5, 0, 0).subtract(camera))),
+                "TC01: wrong color");
+        assertEquals(2, tracer.getShadowRays(), "TC01: wrong amount of shadow rays");
+        assertEquals(1, tracer.getOccluderHits(), "TC01: the second shadow ray missed the cache");
+
+        //TC02: a point out of the shadow is not blocked by the cached occluder
+        assertNotEquals(shadow, tracer.traceRay(new Ray(camera, new Point(20, 0, 0).subtract(camera))),
+                "TC02: a lit point is in the shadow");
+        assertEquals(1, tracer.getOccluderHits(), "TC02: a lit point hit the cache");
+
+        //TC03: a ray tracer that is prepared again forgets the occluders of the former render
+        sphere.setMaterial(new Material().setKd(0.5).setKt(0.5));
+        tracer.prepare();
+        assertNotEquals(shadow, tracer.traceRay(new Ray(camera, new Point(0.5, 0, 0).subtract(camera))),
+                "TC03: the old occluder blocked the light");
+        assertEquals(1, tracer.getOccluderHits(), "TC03: the old occluder was used");
+
+        //TC04: a transparent occluder is not cached
+        tracer = new SimpleRayTracer(scene);
+        tracer.traceRay(new Ray(camera, new Point(0, 0, 0).subtract(camera)));
+        tracer.traceRay(new Ray(camera, new Point(0.5, 0, 0).subtract(camera)));
+        assertEquals(0, tracer.getOccluderHits(), "TC04: a transparent occluder was cached");
+    }
+}
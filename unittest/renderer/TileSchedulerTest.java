@@ -0,0 +1,114 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * unit test for renderer.TileScheduler
+ *
+ * @author Ishai zigdon
+ * @author Zaki zafrani
+ */
+class TileSchedulerTest {
+
+    /**
+     * Default constructor for TileSchedulerTest.
+     */
+    TileSchedulerTest() {/*just for the javadoc*/}
+
+    /**
+     * Test method for {@link TileScheduler#getTiles()}
+     */
+    @Test
+    void testGetTiles() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: every pixel is covered by exactly one tile in every order
+        for (TileOrder order : TileOrder.values()) {
+            int[][] covered = new int[37][50];
+            for (Tile tile : new TileScheduler(0, 0, 50, 37, 8, order).getTiles())
+                for (int i = tile.y(); i < tile.y() + tile.height(); i++)
+                    for (int j = tile.x(); j < tile.x() + tile.width(); j++)
+                        covered[i][j]++;
+            for (int[] row : covered)
+                for (int count : row)
+                    assertEquals(1, count, "TC01: " + order + " tiles don't cover the image exactly once");
+        }
+
+        //TC02: consecutive tiles of the Hilbert order are neighbours
+        List<Tile> tiles = new TileScheduler(0, 0, 64, 64, 8, TileOrder.HILBERT).getTiles();
+        for (int i = 1; i < tiles.size(); i++)
+            assertEquals(8, Math.abs(tiles.get(i).x() - tiles.get(i - 1).x())
+                            + Math.abs(tiles.get(i).y() - tiles.get(i - 1).y()),
+                    "TC02: consecutive Hilbert tiles are not neighbours");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: tile bigger than the image
+        assertEquals(List.of(new Tile(0, 0, 5, 3)),
+                new TileScheduler(0, 0, 5, 3, 16, TileOrder.MORTON).getTiles(), "TC10: wrong single tile");
+    }
+
+    /**
+     * Test method for {@link TileScheduler#render(ForkJoinPool, java.util.function.Consumer, Runnable)}
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void testRender() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            //TC01: every tile is rendered exactly once by the pool
+            TileScheduler scheduler = new TileScheduler(0, 0, 50, 37, 8, TileOrder.HILBERT);
+            AtomicInteger pixels = new AtomicInteger();
+            scheduler.render(pool, tile -> pixels.addAndGet(tile.size()),
+                    () -> fail("TC01: the render was cancelled"));
+            assertEquals(50 * 37, pixels.get(), "TC01: wrong amount of rendered pixels");
+
+            //TC02: interrupting the calling thread cancels the render, and waits for the tiles in progress
+            CountDownLatch started = new CountDownLatch(1);
+            AtomicBoolean cancelled = new AtomicBoolean();
+            AtomicInteger inProgress = new AtomicInteger();
+            AtomicInteger rendered = new AtomicInteger();
+            AtomicBoolean interrupted = new AtomicBoolean();
+            AtomicInteger leftInProgress = new AtomicInteger(-1);
+            Thread caller = new Thread(() -> {
+                scheduler.render(pool, tile -> {
+                    if (cancelled.get()) return;
+                    inProgress.incrementAndGet();
+                    started.countDown();
+                    LockSupport.parkNanos(10_000_000);
+                    rendered.incrementAndGet();
+                    inProgress.decrementAndGet();
+                }, () -> cancelled.set(true));
+                interrupted.set(Thread.currentThread().isInterrupted());
+                leftInProgress.set(inProgress.get());
+            });
+            caller.start();
+            started.await();
+            caller.interrupt();
+            caller.join();
+            assertTrue(cancelled.get(), "TC02: the render was not cancelled");
+            assertTrue(interrupted.get(), "TC02: the interrupt status was lost");
+            assertEquals(0, leftInProgress.get(), "TC02: the render returned before the tiles in progress");
+            assertTrue(rendered.get() < scheduler.getTiles().size(), "TC02: all the tiles were rendered");
+
+            // =============== Boundary Values Tests ==================
+            //TC10: an empty area has no tiles to render
+            TileScheduler empty = new TileScheduler(0, 0, 0, 0, 8, TileOrder.HILBERT);
+            assertTrue(empty.getTiles().isEmpty(), "TC10: an empty area has tiles");
+            assertDoesNotThrow(() -> empty.render(pool, tile -> fail("TC10: a tile was rendered"), () -> {
+                    }),
+                    "TC10: rendering an empty area failed");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}